@@ -0,0 +1,58 @@
+package press.cirno.snowflakedemo.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试入口<br >
+ * 线程数从 1 开始逐次翻倍到最大线程数（默认 CPU 核数），也可用逗号分隔直接指定各线程数（如 8,32,128）；
+ * 每个线程数的结果写为一个 JSON 文件，便于版本间比较<br >
+ * 用法：java -jar target/benchmarks.jar [最大线程数|线程数列表] [结果目录] [基准正则]
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String threadsArg = args.length > 0 ? args[0] : String.valueOf(Runtime.getRuntime().availableProcessors());
+        File resultDir = new File(args.length > 1 ? args[1] : "jmh-results");
+        String include = args.length > 2 ? args[2] : "press\\.cirno\\.snowflakedemo\\.benchmark\\..*Benchmark\\..*";
+        if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+            throw new IllegalStateException("无法创建结果目录: " + resultDir);
+        }
+        for (int threads : threadCounts(threadsArg)) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "threads-" + threads + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    /**
+     * @param threadsArg 最大线程数，或逗号分隔的线程数列表
+     * @return 1, 2, 4 ... 直到最大线程数（含） || 列表中的各线程数
+     */
+    private static List<Integer> threadCounts(String threadsArg) {
+        List<Integer> counts = new ArrayList<>();
+        if (threadsArg.contains(",")) {
+            for (String threads : threadsArg.split(",")) {
+                counts.add(Math.max(1, Integer.parseInt(threads.trim())));
+            }
+            return counts;
+        }
+        int maxThreads = Integer.parseInt(threadsArg);
+        for (int threads = 1; threads < maxThreads; threads <<= 1) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+}
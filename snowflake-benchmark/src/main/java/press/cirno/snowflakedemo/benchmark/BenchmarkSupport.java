@@ -0,0 +1,62 @@
+package press.cirno.snowflakedemo.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.generator.BitLayout;
+import press.cirno.snowflakedemo.generator.GeneratorContext;
+import press.cirno.snowflakedemo.service.WorkerService;
+
+/**
+ * 基准测试公共部分：以桩注册代替 Master，直接为 WorkerService 指定 Worker ID
+ */
+final class BenchmarkSupport {
+    // 与默认配置的起始时间 2024-08-12 08:12:00 同量级即可，基准测试不关心具体值
+    static final long START_TIME = 1723421520000L;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @return 使用默认值的配置
+     */
+    static AppConfig appConfig() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setExposedAddress("http://localhost:8080/");
+        appConfig.setMasterAddress("http://localhost:8080/");
+        // 每轮基准都会重建生成器，不做重启保护
+        appConfig.setCheckpointEnabled(false);
+        return appConfig;
+    }
+
+    /**
+     * 不经 Master 注册，以 1..stripes 作为 Worker ID 初始化 WorkerService
+     *
+     * @param appConfig 配置
+     * @return 已就绪的 WorkerService
+     */
+    static WorkerService workerService(AppConfig appConfig) {
+        WorkerService workerService = new WorkerService(appConfig, new SimpleMeterRegistry());
+        int[] workerIds = new int[Math.max(1, appConfig.getStripes())];
+        for (int i = 0; i < workerIds.length; i++) {
+            workerIds[i] = i + 1;
+        }
+        workerService.setWorkerIds(workerIds);
+        workerService.initGenerator();
+        return workerService;
+    }
+
+    /**
+     * @param clockDriftStrategy 回拨策略
+     * @param waitTime           wait 模式最长等待时间
+     * @return 默认布局、Worker ID 为 1 的生成器参数
+     */
+    static GeneratorContext context(String clockDriftStrategy, long waitTime) {
+        GeneratorContext context = new GeneratorContext();
+        context.setWorkerId(1L);
+        context.setLayout(BitLayout.DEFAULT);
+        context.setStartTime(START_TIME);
+        context.setClockDriftStrategy(clockDriftStrategy);
+        context.setWaitTime(waitTime);
+        return context;
+    }
+}
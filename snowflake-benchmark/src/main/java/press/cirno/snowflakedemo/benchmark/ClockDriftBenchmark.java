@@ -0,0 +1,71 @@
+package press.cirno.snowflakedemo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+import press.cirno.snowflakedemo.generator.CasIdGenerator;
+import press.cirno.snowflakedemo.generator.GeneratorContext;
+import press.cirno.snowflakedemo.generator.IIdGenerator;
+import press.cirno.snowflakedemo.generator.LockIdGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时钟回拨路径：时钟每隔 period 毫秒回拨 drift 毫秒，再在下一个 period 跳回<br >
+ * auto/wait 策略在回拨后等待追平，reject 策略在回拨窗口内请求失败（计为一次操作，返回 -1）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClockDriftBenchmark {
+    @Param({"auto", "wait", "reject"})
+    private String strategy;
+
+    @Param({"lock", "cas"})
+    private String generator;
+
+    @Param({"5"})
+    private long drift;
+
+    @Param({"50"})
+    private long period;
+
+    private IIdGenerator idGenerator;
+
+    @Setup
+    public void setup() {
+        GeneratorContext context = BenchmarkSupport.context(strategy, 30L);
+        context.setTimeSource(this::driftingTime);
+        if (generator.equalsIgnoreCase("cas")) {
+            idGenerator = new CasIdGenerator(context);
+        } else {
+            idGenerator = new LockIdGenerator(context);
+        }
+    }
+
+    /**
+     * 奇数周期内时钟落后 drift 毫秒，进入奇数周期即发生一次回拨
+     *
+     * @return 时间戳
+     */
+    private long driftingTime() {
+        long now = System.currentTimeMillis();
+        return ((now / period) & 1L) == 1L ? now - drift : now;
+    }
+
+    @TearDown
+    public void tearDown() {
+        idGenerator.close();
+    }
+
+    @Benchmark
+    public long nextId() {
+        try {
+            return idGenerator.nextId();
+        } catch (TimeAccuracyException e) {
+            return -1L;
+        }
+    }
+}
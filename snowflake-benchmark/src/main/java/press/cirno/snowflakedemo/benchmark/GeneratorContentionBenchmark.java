@@ -0,0 +1,47 @@
+package press.cirno.snowflakedemo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.service.WorkerService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 高并发下的锁交接开销：合并生成器与互斥锁基线（原 synchronized 实现）、CAS 对比<br >
+ * 序列号放宽到 18 位（每毫秒 262144 个 ID），吞吐不受序列号上限约束，只反映线程间交接；
+ * 建议以 java -jar target/benchmarks.jar 8,32,128 jmh-results GeneratorContention 运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorContentionBenchmark {
+    @Param({"lock", "cas", "combining"})
+    private String generator;
+
+    private WorkerService workerService;
+
+    @Setup
+    public void setup() {
+        AppConfig appConfig = BenchmarkSupport.appConfig();
+        appConfig.setGenerator(generator);
+        appConfig.setTimestampBits(41);
+        appConfig.setDatacenterBits(0);
+        appConfig.setWorkerBits(4);
+        appConfig.setSequenceBits(18);
+        workerService = BenchmarkSupport.workerService(appConfig);
+    }
+
+    @TearDown
+    public void tearDown() {
+        workerService.getGenerator().close();
+        workerService.getTimeSource().close();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return workerService.nextId();
+    }
+}
@@ -0,0 +1,59 @@
+package press.cirno.snowflakedemo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.service.WorkerService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列号耗尽路径：缩小序列号位数，使大部分请求进入 waitNextMillis() 等待下一毫秒，比较各等待策略<br >
+ * 机器码位数随之放大以保持总位数 63
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceExhaustionBenchmark {
+    // 每毫秒 4 / 256 个 ID
+    @Param({"2", "8"})
+    private int sequenceBits;
+
+    @Param({"lock", "cas"})
+    private String generator;
+
+    @Param({"spin", "yield", "park"})
+    private String waitStrategy;
+
+    // 借用未来毫秒上限，0 为不借用
+    @Param({"0", "5"})
+    private long borrowLimit;
+
+    private WorkerService workerService;
+
+    @Setup
+    public void setup() {
+        AppConfig appConfig = BenchmarkSupport.appConfig();
+        appConfig.setGenerator(generator);
+        appConfig.setWaitStrategy(waitStrategy);
+        appConfig.setBorrowLimit(borrowLimit);
+        appConfig.setTimestampBits(41);
+        appConfig.setDatacenterBits(0);
+        appConfig.setWorkerBits(22 - sequenceBits);
+        appConfig.setSequenceBits(sequenceBits);
+        workerService = BenchmarkSupport.workerService(appConfig);
+    }
+
+    @TearDown
+    public void tearDown() {
+        workerService.getGenerator().close();
+        workerService.getTimeSource().close();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return workerService.nextId();
+    }
+}
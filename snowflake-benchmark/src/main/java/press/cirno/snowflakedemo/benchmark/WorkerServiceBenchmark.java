@@ -0,0 +1,55 @@
+package press.cirno.snowflakedemo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.service.WorkerService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkerService.nextId() 热路径：各生成器实现，有无预生成缓冲，各时间源<br >
+ * 默认布局每毫秒 4096 个 ID，高线程数下吞吐受序列号上限约束
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkerServiceBenchmark {
+    @Param({"lock", "cas"})
+    private String generator;
+
+    @Param({"false", "true"})
+    private boolean buffer;
+
+    @Param({"system", "ticking"})
+    private String timeSource;
+
+    @Param({"1"})
+    private int stripes;
+
+    private WorkerService workerService;
+
+    @Setup
+    public void setup() {
+        AppConfig appConfig = BenchmarkSupport.appConfig();
+        appConfig.setGenerator(generator);
+        appConfig.setBufferEnabled(buffer);
+        appConfig.setTimeSource(timeSource);
+        appConfig.setStripes(stripes);
+        workerService = BenchmarkSupport.workerService(appConfig);
+    }
+
+    @TearDown
+    public void tearDown() {
+        // 桩注册无需向 Master 注销，只关闭生成器
+        workerService.getGenerator().close();
+        workerService.getTimeSource().close();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return workerService.nextId();
+    }
+}
@@ -0,0 +1,61 @@
+package press.cirno.snowflakedemo.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应批大小<br >
+ * 按消费速率（指数加权平均）调整批大小，使一批覆盖约 prefetchMillis 的消费量；非线程安全，由调用方加锁
+ */
+class BatchSizer {
+    // 采样间隔，间隔过短时速率抖动大
+    private static final long SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // 新样本的权重
+    private static final double ALPHA = 0.3D;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long prefetchMillis;
+
+    private volatile int batchSize;
+    private double rate = 0D;
+    private long lastConsumed = 0L;
+    private long lastSample;
+
+    /**
+     * @param config 客户端配置
+     * @param now    当前时间（System.nanoTime）
+     */
+    BatchSizer(ClientConfig config, long now) {
+        this.minBatchSize = config.getMinBatchSize();
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.prefetchMillis = config.getPrefetchMillis();
+        this.batchSize = minBatchSize;
+        this.lastSample = now;
+    }
+
+    /**
+     * @return 当前批大小，可不加锁读取
+     */
+    int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 记录一次消费量采样，距上次采样不足采样间隔时忽略
+     *
+     * @param consumed 累计消费量
+     * @param now      当前时间（System.nanoTime）
+     */
+    void sample(long consumed, long now) {
+        long elapsed = now - lastSample;
+        if (elapsed < SAMPLE_NANOS) {
+            return;
+        }
+        double sample = (consumed - lastConsumed) * 1e9D / elapsed;
+        rate = rate == 0D ? sample : rate * (1D - ALPHA) + sample * ALPHA;
+        lastConsumed = consumed;
+        lastSample = now;
+        long target = (long) (rate * prefetchMillis / 1000D);
+        batchSize = (int) Math.max(minBatchSize, Math.min(maxBatchSize, target));
+    }
+}
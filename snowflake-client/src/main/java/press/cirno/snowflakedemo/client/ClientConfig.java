@@ -0,0 +1,38 @@
+package press.cirno.snowflakedemo.client;
+
+import lombok.Data;
+
+/**
+ * 客户端配置
+ */
+@Data
+public class ClientConfig {
+    // Master 地址，如 http://localhost:8080/
+    private String masterAddress;
+
+    // 单批数量下限 / 上限，上限同时受 Worker 端 sf.worker.batch-max-count 限制
+    private int minBatchSize = 100;
+    private int maxBatchSize = 4096;
+
+    // 每批期望覆盖的消费时长，据此按消费速率调整批大小
+    private long prefetchMillis = 1000L;
+
+    // 单次 HTTP 请求超时
+    private long requestTimeoutMillis = 1000L;
+
+    // nextId() 在本地无可用 ID 时的最长等待时间
+    private long acquireTimeoutMillis = 3000L;
+
+    // Worker 列表刷新间隔
+    private long directoryRefreshMillis = 10000L;
+
+    // 长轮询 Master 的 /master/directory，Worker 变更后即时更新列表
+    private boolean directoryWatch = true;
+
+    // 单次长轮询的等待时间，超出 Master 的 sf.master.directory.max-wait 时按其截断
+    private long directoryWaitMillis = 30000L;
+
+    public ClientConfig(String masterAddress) {
+        this.masterAddress = masterAddress.endsWith("/") ? masterAddress : masterAddress + "/";
+    }
+}
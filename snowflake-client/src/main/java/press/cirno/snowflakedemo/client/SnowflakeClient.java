@@ -0,0 +1,186 @@
+package press.cirno.snowflakedemo.client;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 嵌入式 ID 客户端<br >
+ * 后台线程从 Worker 的 /worker/ids 批量预取 ID，nextId() 直接从本地缓冲返回<br >
+ * 批大小按消费速率自适应，Worker 失效时切换到其他 Worker；Worker 列表由 Master 推送更新，取 ID 不经过 Master
+ */
+@Slf4j
+public class SnowflakeClient implements AutoCloseable {
+    private final ClientConfig config;
+    private final HttpClient httpClient;
+    private final WorkerDirectory directory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition needRefill = lock.newCondition();
+
+    // 以下字段由 lock 保护
+    private final ArrayDeque<long[]> batches = new ArrayDeque<>();
+    private long[] current = new long[0];
+    private int cursor = 0;
+    private long available = 0L;
+    private long consumed = 0L;
+
+    // 自适应批大小，由 lock 保护
+    private final BatchSizer batchSizer;
+
+    private volatile boolean running = true;
+    private final Thread fetcher;
+
+    public SnowflakeClient(ClientConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getRequestTimeoutMillis()))
+                .build();
+        this.directory = new WorkerDirectory(config, httpClient);
+        this.batchSizer = new BatchSizer(config, System.nanoTime());
+        this.fetcher = new Thread(this::fetchLoop, "snowflake-client-fetcher");
+        this.fetcher.setDaemon(true);
+        this.fetcher.start();
+    }
+
+    /**
+     * 获取 ID
+     *
+     * @return ID
+     * @throws SnowflakeClientException 等待超时或线程中断
+     */
+    public long nextId() {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(config.getAcquireTimeoutMillis());
+            while (cursor >= current.length) {
+                long[] batch = batches.poll();
+                if (batch != null) {
+                    current = batch;
+                    cursor = 0;
+                    continue;
+                }
+                needRefill.signal();
+                if (remaining <= 0L) {
+                    throw new SnowflakeClientException("获取 ID 超时");
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            available--;
+            consumed++;
+            if (available < lowWater()) {
+                needRefill.signal();
+            }
+            return current[cursor++];
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SnowflakeClientException("获取 ID 被中断", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 剩余量低于半批时补充
+     */
+    private long lowWater() {
+        return batchSizer.batchSize() / 2;
+    }
+
+    /**
+     * 预取线程：剩余量低于低水位时拉取一批，否则等待唤醒
+     */
+    private void fetchLoop() {
+        while (running) {
+            lock.lock();
+            try {
+                while (running && available >= lowWater()) {
+                    needRefill.await(100, TimeUnit.MILLISECONDS);
+                    batchSizer.sample(consumed, System.nanoTime());
+                }
+                batchSizer.sample(consumed, System.nanoTime());
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (!running) {
+                return;
+            }
+
+            long[] ids = fetch(batchSizer.batchSize());
+            if (ids == null) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            lock.lock();
+            try {
+                batches.offer(ids);
+                available += ids.length;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 从 Worker 拉取一批 ID，失败时剔除该 Worker 并尝试下一个
+     *
+     * @param count 数量
+     * @return ID || null: 全部尝试失败
+     */
+    private long[] fetch(int count) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            String worker;
+            try {
+                worker = directory.next();
+            } catch (SnowflakeClientException e) {
+                log.error("拉取 ID 失败: {}", e.getMessage());
+                return null;
+            }
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(worker + "worker/ids?count=" + count))
+                        .timeout(Duration.ofMillis(config.getRequestTimeoutMillis()))
+                        .GET()
+                        .build();
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    long[] ids = JSON.parseObject(response.body(), long[].class);
+                    if (ids != null && ids.length > 0) {
+                        return ids;
+                    }
+                }
+                log.warn("Worker 未返回 ID: {} HTTP {}", worker, response.statusCode());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                log.warn("请求 Worker 发生错误: {} {}", worker, e.getMessage());
+            }
+            directory.markFailed(worker);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        fetcher.interrupt();
+        directory.close();
+    }
+}
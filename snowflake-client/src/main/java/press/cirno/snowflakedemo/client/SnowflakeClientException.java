@@ -0,0 +1,11 @@
+package press.cirno.snowflakedemo.client;
+
+public class SnowflakeClientException extends RuntimeException {
+    public SnowflakeClientException(String message) {
+        super(message);
+    }
+
+    public SnowflakeClientException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+}
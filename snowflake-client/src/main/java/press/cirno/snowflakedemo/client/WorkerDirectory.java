@@ -0,0 +1,158 @@
+package press.cirno.snowflakedemo.client;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 客户端本地 Worker 列表<br >
+ * 从 Master 的 /master/workers 获取，轮询选择，失效 Worker 剔除后按需刷新<br >
+ * 启用 directoryWatch 时后台线程长轮询 /master/directory（带 If-None-Match），Worker 注册、注销、心跳超时后即时更新
+ */
+@Slf4j
+class WorkerDirectory {
+    private final ClientConfig config;
+    private final HttpClient httpClient;
+    private final AtomicInteger cursor = new AtomicInteger(0);
+
+    private volatile List<String> workers = List.of();
+    private volatile long lastRefresh = 0L;
+    // 最近一次从 /master/directory 获取的目录版本，-1 为尚未获取
+    private volatile long version = -1L;
+
+    private volatile boolean running = true;
+    private final Thread watcher;
+
+    WorkerDirectory(ClientConfig config, HttpClient httpClient) {
+        this.config = config;
+        this.httpClient = httpClient;
+        if (config.isDirectoryWatch()) {
+            this.watcher = new Thread(this::watchLoop, "snowflake-client-directory");
+            this.watcher.setDaemon(true);
+            this.watcher.start();
+        } else {
+            this.watcher = null;
+        }
+    }
+
+    /**
+     * 轮询选择下一个 Worker，列表为空或到期时先刷新
+     *
+     * @return Worker 地址
+     * @throws SnowflakeClientException 无可用 Worker
+     */
+    String next() {
+        if (workers.isEmpty() || System.currentTimeMillis() - lastRefresh > config.getDirectoryRefreshMillis()) {
+            refresh();
+        }
+        List<String> snapshot = workers;
+        if (snapshot.isEmpty()) {
+            throw new SnowflakeClientException("无可用 Worker");
+        }
+        return snapshot.get(Math.floorMod(cursor.getAndIncrement(), snapshot.size()));
+    }
+
+    /**
+     * 剔除失效 Worker，下次选择时切换到其他 Worker
+     *
+     * @param worker Worker 地址
+     */
+    void markFailed(String worker) {
+        List<String> remaining = new ArrayList<>(workers);
+        if (remaining.remove(worker)) {
+            log.warn("Worker 失效，切换到其他 Worker: {}", worker);
+            workers = List.copyOf(remaining);
+        }
+    }
+
+    /**
+     * 从 Master 刷新 Worker 列表，失败时保留旧列表
+     */
+    synchronized void refresh() {
+        lastRefresh = System.currentTimeMillis();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(config.getMasterAddress() + "master/workers"))
+                    .timeout(Duration.ofMillis(config.getRequestTimeoutMillis()))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                log.error("获取 Worker 列表失败: HTTP {}", response.statusCode());
+                return;
+            }
+            JSONObject body = JSON.parseObject(response.body());
+            if (body.getIntValue("code") != 0) {
+                log.error("获取 Worker 列表失败: {}", body.getString("message"));
+                return;
+            }
+            workers = List.copyOf(body.getList("data", String.class));
+        } catch (Exception e) {
+            log.error("获取 Worker 列表发生错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 长轮询线程：目录未变更时 Master 挂起请求直到变更或超时（304），变更后立即替换本地列表<br >
+     * Master 不支持目录接口（404）时退出，仅保留定时刷新
+     */
+    private void watchLoop() {
+        while (running) {
+            try {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(
+                                URI.create(config.getMasterAddress() + "master/directory?wait=" + config.getDirectoryWaitMillis()))
+                        .timeout(Duration.ofMillis(config.getDirectoryWaitMillis() + config.getRequestTimeoutMillis()))
+                        .GET();
+                if (version >= 0L) {
+                    builder.header("If-None-Match", "\"" + version + "\"");
+                }
+                HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 304) {
+                    continue;
+                }
+                if (response.statusCode() == 404) {
+                    log.warn("Master 不支持 Worker 目录推送，仅定时刷新 Worker 列表");
+                    return;
+                }
+                JSONObject body = response.statusCode() == 200 ? JSON.parseObject(response.body()) : null;
+                if (body == null || body.getIntValue("code") != 0) {
+                    log.error("获取 Worker 目录失败: HTTP {}", response.statusCode());
+                    Thread.sleep(config.getRequestTimeoutMillis());
+                    continue;
+                }
+                JSONObject data = body.getJSONObject("data");
+                workers = List.copyOf(data.getList("workers", String.class));
+                version = data.getLongValue("version");
+                lastRefresh = System.currentTimeMillis();
+                log.info("Worker 目录更新: 版本 {}，{} 个 Worker", version, workers.size());
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("获取 Worker 目录发生错误: {}", e.getMessage());
+                try {
+                    Thread.sleep(config.getRequestTimeoutMillis());
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止长轮询线程
+     */
+    void close() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package press.cirno.snowflakedemo.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 自适应批大小：一批覆盖约 prefetchMillis 的消费量，限制在上下限之间，速率变化按指数加权平滑
+ */
+class BatchSizerTests {
+    private static final long STEP = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static ClientConfig config() {
+        ClientConfig config = new ClientConfig("http://localhost:8080");
+        config.setMinBatchSize(100);
+        config.setMaxBatchSize(4096);
+        config.setPrefetchMillis(1000L);
+        return config;
+    }
+
+    @Test
+    void firstSampleSetsRate() {
+        BatchSizer sizer = new BatchSizer(config(), 0L);
+        assertThat(sizer.batchSize()).isEqualTo(100);
+
+        // 100 ms 消费 200 个，即每秒 2000 个
+        sizer.sample(200L, STEP);
+        assertThat(sizer.batchSize()).isEqualTo(2000);
+    }
+
+    @Test
+    void ignoresSamplesWithinInterval() {
+        BatchSizer sizer = new BatchSizer(config(), 0L);
+        sizer.sample(200L, STEP - 1);
+        assertThat(sizer.batchSize()).isEqualTo(100);
+        // 未采样时累计量不清零，下次采样覆盖整个区间
+        sizer.sample(200L, STEP);
+        assertThat(sizer.batchSize()).isEqualTo(2000);
+    }
+
+    @Test
+    void smoothsRateChanges() {
+        BatchSizer sizer = new BatchSizer(config(), 0L);
+        sizer.sample(200L, STEP);
+        // 消费停止：2000 * 0.7 = 1400，再 980；浮点截断可能少 1
+        sizer.sample(200L, 2 * STEP);
+        assertThat(sizer.batchSize()).isCloseTo(1400, within(1));
+        sizer.sample(200L, 3 * STEP);
+        assertThat(sizer.batchSize()).isCloseTo(980, within(1));
+        // 消费恢复到每秒 3000：980 * 0.7 + 3000 * 0.3 = 1586
+        sizer.sample(500L, 4 * STEP);
+        assertThat(sizer.batchSize()).isCloseTo(1586, within(1));
+    }
+
+    @Test
+    void clampsToBounds() {
+        BatchSizer sizer = new BatchSizer(config(), 0L);
+        sizer.sample(100_000L, STEP);
+        assertThat(sizer.batchSize()).isEqualTo(4096);
+
+        BatchSizer idle = new BatchSizer(config(), 0L);
+        idle.sample(1L, STEP);
+        assertThat(idle.batchSize()).isEqualTo(100);
+    }
+}
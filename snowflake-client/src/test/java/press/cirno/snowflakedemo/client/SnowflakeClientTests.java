@@ -0,0 +1,119 @@
+package press.cirno.snowflakedemo.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 客户端拉取：失效 Worker 剔除后切换到其他 Worker，全部失效时获取超时
+ */
+class SnowflakeClientTests {
+    private HttpServer server;
+    private String base;
+    // 各路径被请求的次数
+    private final AtomicInteger brokenRequests = new AtomicInteger(0);
+    private final AtomicInteger healthyRequests = new AtomicInteger(0);
+    private final AtomicLong next = new AtomicLong(1000L);
+    private volatile String workers;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        server.createContext("/master/workers", exchange -> respond(exchange, 200,
+                "{\"code\":0,\"message\":\"请求成功\",\"data\":" + workers + "}"));
+        server.createContext("/broken/worker/ids", exchange -> {
+            brokenRequests.incrementAndGet();
+            respond(exchange, 500, "");
+        });
+        server.createContext("/healthy/worker/ids", exchange -> {
+            healthyRequests.incrementAndGet();
+            int count = Integer.parseInt(exchange.getRequestURI().getQuery().substring("count=".length()));
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < count; i++) {
+                body.append(i == 0 ? "" : ",").append(next.getAndIncrement());
+            }
+            respond(exchange, 200, body.append(']').toString());
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private ClientConfig config() {
+        ClientConfig config = new ClientConfig(base);
+        config.setDirectoryWatch(false);
+        config.setMinBatchSize(10);
+        config.setAcquireTimeoutMillis(2000L);
+        // 测试期间不按时间刷新列表，被剔除的 Worker 不会重新加入
+        config.setDirectoryRefreshMillis(60_000L);
+        return config;
+    }
+
+    @Test
+    void failedWorkerIsSkipped() {
+        workers = "[\"" + base + "broken/\",\"" + base + "healthy/\"]";
+        try (SnowflakeClient client = new SnowflakeClient(config())) {
+            long previous = 999L;
+            for (int i = 0; i < 100; i++) {
+                long id = client.nextId();
+                assertThat(id).isGreaterThan(previous);
+                previous = id;
+            }
+        }
+        // 失效 Worker 只被请求一次即剔除，之后的批次都来自其他 Worker
+        assertThat(brokenRequests.get()).isLessThanOrEqualTo(1);
+        assertThat(healthyRequests.get()).isPositive();
+    }
+
+    @Test
+    void allWorkersFailingTimesOut() {
+        workers = "[\"" + base + "broken/\"]";
+        ClientConfig config = config();
+        config.setAcquireTimeoutMillis(500L);
+        try (SnowflakeClient client = new SnowflakeClient(config)) {
+            assertThatThrownBy(client::nextId).isInstanceOf(SnowflakeClientException.class);
+        }
+        // 剔除后列表为空，再次拉取前向 Master 刷新并重试
+        assertThat(brokenRequests.get()).isGreaterThan(1);
+        assertThat(healthyRequests.get()).isZero();
+    }
+
+    @Test
+    void refreshesListAfterAllWorkersFailed() throws InterruptedException {
+        workers = "[\"" + base + "broken/\"]";
+        ClientConfig config = config();
+        config.setAcquireTimeoutMillis(5000L);
+        try (SnowflakeClient client = new SnowflakeClient(config)) {
+            while (brokenRequests.get() == 0) {
+                Thread.sleep(10L);
+            }
+            // 唯一的 Worker 失效被剔除后，从 Master 取得的新列表中有可用 Worker
+            workers = "[\"" + base + "healthy/\"]";
+            assertThat(client.nextId()).isGreaterThanOrEqualTo(1000L);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package press.cirno.snowflakedemo.loadtest;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import press.cirno.snowflakedemo.SnowflakeDemoApplication;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.generator.BitLayout;
+import press.cirno.snowflakedemo.service.WorkerService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 进程内集群：一个 Master + 若干 Worker，各自为独立的 Spring 上下文与端口<br >
+ * Master 使用 H2 内存库；Worker 以不同的 sf.worker.ip / sf.worker.mac 注册，互不冲突
+ */
+final class Cluster implements AutoCloseable {
+    private final LoadTestConfig config;
+    private ConfigurableApplicationContext master;
+    private BitLayout layout;
+    // 正在服务的 Worker
+    private final List<WorkerNode> workers = new ArrayList<>();
+    // crash 方式停止的 Worker，上下文在压测结束时关闭
+    private final List<WorkerNode> crashed = new ArrayList<>();
+    private int nextIndex = 0;
+
+    Cluster(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 启动 Master 与初始 Worker
+     */
+    void start() {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + config.basePort(),
+                "--sf.master.enabled=true",
+                "--sf.worker.enabled=false",
+                "--sf.master.routing-strategy=" + config.routingStrategy(),
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password="
+        ));
+        master = run(args);
+        layout = BitLayout.of(master.getBean(AppConfig.class));
+        for (int i = 0; i < config.workers(); i++) {
+            startWorker();
+        }
+    }
+
+    /**
+     * 启动一个新 Worker，注册完成后返回
+     *
+     * @return Worker
+     */
+    WorkerNode startWorker() {
+        int index = nextIndex++;
+        int port = config.basePort() + 1 + index;
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + port,
+                "--sf.master.enabled=false",
+                "--sf.worker.enabled=true",
+                "--sf.exposed-address=http://127.0.0.1:" + port + "/",
+                "--sf.master-address=http://127.0.0.1:" + config.basePort() + "/",
+                "--sf.worker.ip=10.0." + (index / 250) + "." + (index % 250 + 1),
+                "--sf.worker.mac=" + String.format("02-00-00-00-%02X-%02X", (index >>> 8) & 0xFF, index & 0xFF),
+                // 同一进程内多个 Worker，不做重启保护
+                "--sf.worker.checkpoint.enabled=false"
+        ));
+        WorkerNode node = new WorkerNode(index, port, run(args));
+        synchronized (workers) {
+            workers.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * 随机停止一个 Worker，至少保留一个
+     *
+     * @param crash true: 不注销，直接停止 Web 服务与心跳，Master 只能等心跳超时 || false: 注销后关闭
+     * @return 被停止的 Worker || null: 仅剩一个 Worker
+     */
+    WorkerNode stopRandomWorker(boolean crash) {
+        WorkerNode node;
+        synchronized (workers) {
+            if (workers.size() <= 1) {
+                return null;
+            }
+            node = workers.remove(ThreadLocalRandom.current().nextInt(workers.size()));
+        }
+        if (crash) {
+            node.context.getBean(WorkerService.class).getService().shutdownNow();
+            ((ServletWebServerApplicationContext) node.context).getWebServer().stop();
+            synchronized (crashed) {
+                crashed.add(node);
+            }
+        } else {
+            node.context.close();
+        }
+        return node;
+    }
+
+    int workerCount() {
+        synchronized (workers) {
+            return workers.size();
+        }
+    }
+
+    /**
+     * @param id ID
+     * @return 生成该 ID 的 Worker ID
+     */
+    int workerIdOf(long id) {
+        return (int) ((id >>> layout.getWorkerShift()) & layout.getMaxWorkerId());
+    }
+
+    String masterAddress() {
+        return "http://127.0.0.1:" + config.basePort() + "/";
+    }
+
+    @Override
+    public void close() {
+        List<WorkerNode> nodes = new ArrayList<>();
+        synchronized (workers) {
+            nodes.addAll(workers);
+            workers.clear();
+        }
+        synchronized (crashed) {
+            nodes.addAll(crashed);
+            crashed.clear();
+        }
+        for (WorkerNode node : nodes) {
+            node.context.close();
+        }
+        if (master != null) {
+            master.close();
+        }
+    }
+
+    private ConfigurableApplicationContext run(List<String> args) {
+        // Spring 会把同名命令行参数拼接为列表，按键去重，透传的参数覆盖上面的默认值
+        Map<String, String> merged = new LinkedHashMap<>();
+        merged.put("--management.metrics.use-global-registry", "--management.metrics.use-global-registry=false");
+        for (String arg : args) {
+            merged.put(arg.substring(0, arg.indexOf('=')), arg);
+        }
+        for (String arg : config.nodeArgs()) {
+            merged.put(arg.substring(0, arg.indexOf('=')), arg);
+        }
+        return new SpringApplicationBuilder(SnowflakeDemoApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(merged.values().toArray(String[]::new));
+    }
+
+    /**
+     * 进程内 Worker
+     *
+     * @param index   启动序号，决定端口与注册用的 IP / Mac
+     * @param port    HTTP 端口
+     * @param context Spring 上下文
+     */
+    record WorkerNode(int index, int port, ConfigurableApplicationContext context) {
+    }
+}
@@ -0,0 +1,184 @@
+package press.cirno.snowflakedemo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 负载驱动：固定数量的线程循环请求 Master 的 /master/id 并跟随重定向到 Worker 的 /worker/id<br >
+ * 每秒汇总一次吞吐量、延迟分位数、错误数与 Worker 数；按间隔执行 Worker 变动
+ */
+final class LoadDriver {
+    // 直方图上限 60 秒，单位微秒
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final LoadTestConfig config;
+    private final Cluster cluster;
+    private final HttpClient httpClient;
+    private final HttpRequest request;
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+    // 本秒内各结果的次数，由汇总线程清零
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    // 各 Worker ID 生成的 ID 数，反映路由分布
+    private final Map<Integer, LongAdder> routed = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    // 预热结束前不计入路由分布
+    private volatile boolean measuring = false;
+
+    LoadDriver(LoadTestConfig config, Cluster cluster) {
+        this.config = config;
+        this.cluster = cluster;
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        this.request = HttpRequest.newBuilder(URI.create(cluster.masterAddress() + "master/id"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+    }
+
+    /**
+     * 执行压测，预热后计时 duration 秒
+     *
+     * @return 结果
+     * @throws InterruptedException 线程中断
+     */
+    LoadResult run() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(config.threads());
+        for (int i = 0; i < config.threads(); i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    drive();
+                } finally {
+                    stopped.countDown();
+                }
+            }, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        LoadResult result = new LoadResult(config);
+        Histogram interval = null;
+        long start = System.nanoTime();
+        // 变动在独立线程执行，Worker 启动耗时不影响每秒汇总
+        ScheduledExecutorService churner = Executors.newSingleThreadScheduledExecutor();
+        if (config.churnSeconds() > 0) {
+            churner.scheduleAtFixedRate(
+                    () -> churn(result, (int) TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) - config.warmupSeconds()),
+                    config.warmupSeconds() + config.churnSeconds(),
+                    config.churnSeconds(),
+                    TimeUnit.SECONDS);
+        }
+        int total = config.warmupSeconds() + config.durationSeconds();
+        measuring = config.warmupSeconds() == 0;
+        for (int second = 1; second <= total; second++) {
+            // 按绝对时间对齐
+            long wait = start + TimeUnit.SECONDS.toNanos(second) - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            interval = recorder.getIntervalHistogram(interval);
+            Map<String, Long> counts = drainOutcomes();
+            if (second == config.warmupSeconds()) {
+                measuring = true;
+            }
+            if (second > config.warmupSeconds()) {
+                result.record(second - config.warmupSeconds(), interval, counts, cluster.workerCount());
+            }
+        }
+        // 不中断进行中的变动，等待其完成
+        churner.shutdown();
+        churner.awaitTermination(30, TimeUnit.SECONDS);
+        running = false;
+        stopped.await(10, TimeUnit.SECONDS);
+        Map<Integer, Long> distribution = new TreeMap<>();
+        routed.forEach((workerId, count) -> distribution.put(workerId, count.sum()));
+        result.setRouting(distribution);
+        return result;
+    }
+
+    /**
+     * 请求线程：请求失败不退避，错误率即反映路由质量
+     */
+    private void drive() {
+        while (running) {
+            long begin = System.nanoTime();
+            String outcome;
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    outcome = "http_" + response.statusCode();
+                } else {
+                    long id = Long.parseLong(response.body().trim());
+                    if (id < 0) {
+                        outcome = "worker_error";
+                    } else {
+                        outcome = "ok";
+                        if (measuring) {
+                            routed.computeIfAbsent(cluster.workerIdOf(id), key -> new LongAdder()).increment();
+                        }
+                    }
+                }
+            } catch (HttpTimeoutException e) {
+                outcome = "timeout";
+            } catch (ConnectException e) {
+                outcome = "connect";
+            } catch (IOException | NumberFormatException e) {
+                outcome = "io";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            recorder.recordValue(Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - begin) / 1000L));
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 停止一个 Worker 并启动一个新 Worker
+     *
+     * @param result 结果
+     * @param second 计时秒数
+     */
+    private void churn(LoadResult result, int second) {
+        try {
+            Cluster.WorkerNode stopped = cluster.stopRandomWorker(config.churnMode().equals("crash"));
+            if (stopped != null) {
+                result.recordChurn(second, config.churnMode() + " stop :" + stopped.port());
+            }
+            Cluster.WorkerNode started = cluster.startWorker();
+            result.recordChurn(second, "start :" + started.port());
+        } catch (RuntimeException e) {
+            result.recordChurn(second, "failed: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Long> drainOutcomes() {
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                counts.put(outcome, count);
+            }
+        });
+        return counts;
+    }
+}
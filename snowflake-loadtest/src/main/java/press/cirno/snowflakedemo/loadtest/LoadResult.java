@@ -0,0 +1,120 @@
+package press.cirno.snowflakedemo.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 压测结果：总体延迟直方图、按结果分类的次数、逐秒时间线、Worker 变动事件与路由分布<br >
+ * 延迟单位均为微秒
+ */
+final class LoadResult {
+    private final LoadTestConfig config;
+    private final Histogram total = new Histogram(3);
+    private final Map<String, Long> outcomes = new TreeMap<>();
+    private final List<String> timeline = new ArrayList<>();
+    private final List<String> churnEvents = new ArrayList<>();
+    private Map<Integer, Long> routing = Map.of();
+
+    LoadResult(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 记录一秒的数据，并在控制台输出一行
+     *
+     * @param second   计时秒数
+     * @param interval 本秒延迟直方图
+     * @param counts   本秒各结果的次数
+     * @param workers  当前服务中的 Worker 数
+     */
+    void record(int second, Histogram interval, Map<String, Long> counts, int workers) {
+        total.add(interval);
+        long requests = 0L;
+        long errors = 0L;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            outcomes.merge(entry.getKey(), entry.getValue(), Long::sum);
+            requests += entry.getValue();
+            if (!entry.getKey().equals("ok")) {
+                errors += entry.getValue();
+            }
+        }
+        String line = String.format("%d,%d,%d,%d,%d,%d,%d", second, requests, errors,
+                interval.getValueAtPercentile(50), interval.getValueAtPercentile(99), interval.getMaxValue(), workers);
+        timeline.add(line);
+        System.out.printf("[%3ds] %8d req/s  errors %6d  p50 %6d us  p99 %7d us  max %8d us  workers %d%n",
+                second, requests, errors, interval.getValueAtPercentile(50), interval.getValueAtPercentile(99),
+                interval.getMaxValue(), workers);
+    }
+
+    /**
+     * @param second 计时秒数
+     * @param event  变动描述
+     */
+    synchronized void recordChurn(int second, String event) {
+        churnEvents.add(second + "," + event);
+        System.out.printf("[%3ds] churn: %s%n", second, event);
+    }
+
+    void setRouting(Map<Integer, Long> routing) {
+        this.routing = routing;
+    }
+
+    /**
+     * 输出汇总
+     *
+     * @param out 输出流
+     */
+    synchronized void printSummary(PrintStream out) {
+        long requests = outcomes.values().stream().mapToLong(Long::longValue).sum();
+        long errors = requests - outcomes.getOrDefault("ok", 0L);
+        out.printf("workers=%d threads=%d duration=%ds warmup=%ds churn=%ds(%s) routing=%s%n",
+                config.workers(), config.threads(), config.durationSeconds(), config.warmupSeconds(),
+                config.churnSeconds(), config.churnMode(), config.routingStrategy());
+        out.printf("requests     %d%n", requests);
+        out.printf("throughput   %.1f req/s%n", (double) requests / config.durationSeconds());
+        out.printf("error rate   %.4f%% (%d)%n", requests > 0 ? errors * 100.0 / requests : 0.0, errors);
+        out.printf("outcomes     %s%n", outcomes);
+        out.printf("latency us   mean %.1f  p50 %d  p90 %d  p99 %d  p99.9 %d  max %d%n",
+                total.getMean(), total.getValueAtPercentile(50), total.getValueAtPercentile(90),
+                total.getValueAtPercentile(99), total.getValueAtPercentile(99.9), total.getMaxValue());
+        long routed = routing.values().stream().mapToLong(Long::longValue).sum();
+        out.println("routing      (worker id: ids, share)");
+        routing.forEach((workerId, count) ->
+                out.printf("  %4d: %10d  %5.1f%%%n", workerId, count, routed > 0 ? count * 100.0 / routed : 0.0));
+        if (!churnEvents.isEmpty()) {
+            out.println("churn        (second, event)");
+            churnEvents.forEach(event -> out.println("  " + event));
+        }
+    }
+
+    /**
+     * 写入结果目录：summary.txt 汇总、timeline.csv 逐秒数据、latency.hgrm 延迟分布（可用 HdrHistogram 绘图工具查看）
+     *
+     * @throws IOException 写入失败
+     */
+    void write() throws IOException {
+        File dir = config.resultDir();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建结果目录: " + dir);
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(dir, "summary.txt")), true, StandardCharsets.UTF_8)) {
+            printSummary(out);
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(dir, "timeline.csv")), true, StandardCharsets.UTF_8)) {
+            out.println("second,requests,errors,p50_us,p99_us,max_us,workers");
+            timeline.forEach(out::println);
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(dir, "latency.hgrm")), true, StandardCharsets.UTF_8)) {
+            total.outputPercentileDistribution(out, 1.0);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package press.cirno.snowflakedemo.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测参数<br >
+ * 命令行参数均为 --键=值；以 --sf. / --spring. / --management. 开头的参数原样传给全部节点
+ *
+ * @param workers         初始 Worker 数
+ * @param threads         并发请求线程数
+ * @param durationSeconds 计入结果的压测时长
+ * @param warmupSeconds   预热时长，不计入结果
+ * @param basePort        Master 端口，Worker 依次使用其后的端口
+ * @param churnSeconds    Worker 变动间隔，0 为不变动
+ * @param churnMode       变动方式：graceful 注销后停止 / crash 不注销直接停止服务与心跳
+ * @param routingStrategy Master 的 Worker 选择策略
+ * @param resultDir       结果目录
+ * @param nodeArgs        传给全部节点的参数
+ */
+record LoadTestConfig(int workers,
+                      int threads,
+                      int durationSeconds,
+                      int warmupSeconds,
+                      int basePort,
+                      int churnSeconds,
+                      String churnMode,
+                      String routingStrategy,
+                      File resultDir,
+                      List<String> nodeArgs) {
+
+    /**
+     * @param args 命令行参数
+     * @return 压测参数，未指定的取默认值
+     * @throws IllegalArgumentException 参数格式不合法
+     */
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        List<String> nodeArgs = new ArrayList<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("参数格式应为 --键=值: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            if (key.startsWith("sf.") || key.startsWith("spring.") || key.startsWith("management.")) {
+                nodeArgs.add(arg);
+            } else {
+                options.put(key, arg.substring(eq + 1));
+            }
+        }
+        LoadTestConfig config = new LoadTestConfig(
+                Integer.parseInt(options.getOrDefault("workers", "3")),
+                Integer.parseInt(options.getOrDefault("threads", "64")),
+                Integer.parseInt(options.getOrDefault("duration", "60")),
+                Integer.parseInt(options.getOrDefault("warmup", "5")),
+                Integer.parseInt(options.getOrDefault("base-port", "18080")),
+                Integer.parseInt(options.getOrDefault("churn", "0")),
+                options.getOrDefault("churn-mode", "graceful"),
+                options.getOrDefault("routing", "random"),
+                new File(options.getOrDefault("result-dir", "loadtest-results")),
+                List.copyOf(nodeArgs)
+        );
+        if (config.workers < 1 || config.threads < 1 || config.durationSeconds < 1 || config.warmupSeconds < 0) {
+            throw new IllegalArgumentException("workers / threads / duration 须为正数，warmup 不能为负");
+        }
+        if (!config.churnMode.equals("graceful") && !config.churnMode.equals("crash")) {
+            throw new IllegalArgumentException("churn-mode 仅支持 graceful / crash: " + config.churnMode);
+        }
+        return config;
+    }
+}
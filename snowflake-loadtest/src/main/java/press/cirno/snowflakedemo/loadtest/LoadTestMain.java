@@ -0,0 +1,28 @@
+package press.cirno.snowflakedemo.loadtest;
+
+/**
+ * 端到端压测入口<br >
+ * 进程内启动一个 Master（H2 内存库）与若干 Worker，并发请求 /master/id 并跟随重定向到 Worker，
+ * 可按间隔停止 / 启动 Worker 观察路由在节点变动下的表现<br >
+ * 用法：mvn compile exec:java -Dexec.args="--workers=3 --threads=64 --duration=60 --warmup=5 --churn=10 --churn-mode=crash"
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        int exitCode = 0;
+        try (Cluster cluster = new Cluster(config)) {
+            cluster.start();
+            LoadResult result = new LoadDriver(config, cluster).run();
+            System.out.println();
+            result.printSummary(System.out);
+            result.write();
+            System.out.println("结果已写入 " + config.resultDir().getAbsolutePath());
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        // 各节点的调度线程非守护线程
+        System.exit(exitCode);
+    }
+}
@@ -3,6 +3,7 @@ package press.cirno.snowflakedemo;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -12,7 +13,10 @@ import press.cirno.snowflakedemo.config.AppConfig;
 import press.cirno.snowflakedemo.exception.WorkerManagementException;
 import press.cirno.snowflakedemo.service.IMasterService;
 import press.cirno.snowflakedemo.service.IWorkerService;
+import press.cirno.snowflakedemo.util.ThreadUtil;
+import press.cirno.snowflakedemo.worker.TcpIdServer;
 
+import java.io.IOException;
 import java.util.concurrent.ScheduledFuture;
 
 @Slf4j
@@ -22,15 +26,20 @@ public class SnowflakeDemoApplication implements ApplicationListener<Application
     private final AppConfig appConfig;
     private final IMasterService iMasterService;
     private final IWorkerService iWorkerService;
+    private final TcpIdServer tcpIdServer;
 
     @Autowired
-    public SnowflakeDemoApplication(AppConfig appConfig, IMasterService iMasterService, IWorkerService iWorkerService) {
+    public SnowflakeDemoApplication(AppConfig appConfig, ObjectProvider<IMasterService> iMasterService,
+                                    IWorkerService iWorkerService, TcpIdServer tcpIdServer) {
         this.appConfig = appConfig;
-        this.iMasterService = iMasterService;
+        // 仅 Master 模式加载
+        this.iMasterService = iMasterService.getIfAvailable();
         this.iWorkerService = iWorkerService;
+        this.tcpIdServer = tcpIdServer;
     }
 
     private ScheduledFuture<?> masterFuture;
+    private ScheduledFuture<?> flushFuture;
     private ScheduledFuture<?> workerFuture;
 
     public static void main(String[] args) {
@@ -40,10 +49,14 @@ public class SnowflakeDemoApplication implements ApplicationListener<Application
     @Override
     public void onApplicationEvent(@Nonnull ApplicationReadyEvent event) {
         log.info("<---------应用启动，执行初始化方法--------->");
+        if (appConfig.isVirtualThreads() && !ThreadUtil.isVirtualThreadSupported()) {
+            log.warn("当前 JDK {} 不支持虚拟线程，使用平台线程", Runtime.version().feature());
+        }
         int i = 0;
         if (appConfig.isMaster()) {
             iMasterService.initWorkerList();
             masterFuture = iMasterService.startCheckWorker();
+            flushFuture = iMasterService.startFlushWorker();
             i++;
         }
         if (appConfig.isWorker()) {
@@ -53,6 +66,14 @@ public class SnowflakeDemoApplication implements ApplicationListener<Application
                 System.exit(500);
             }
             workerFuture = iWorkerService.startHeartbeat();
+            if (appConfig.isTcpEnabled()) {
+                try {
+                    tcpIdServer.start();
+                } catch (IOException e) {
+                    log.error("TCP ID 端点启动失败: {}", e.getMessage());
+                    System.exit(500);
+                }
+            }
             i++;
         }
         if (i == 0) {
@@ -65,11 +86,21 @@ public class SnowflakeDemoApplication implements ApplicationListener<Application
     public void destroy() {
         log.info("<---------优雅关闭，执行销毁方法--------->");
         if (appConfig.isWorker()) {
-            workerFuture.cancel(true);
+            // 先停止对外服务再注销
+            tcpIdServer.stop();
+            if (workerFuture != null) {
+                workerFuture.cancel(true);
+            }
             iWorkerService.unregister();
         }
-        if (appConfig.isMaster()) {
-            masterFuture.cancel(true);
+        if (appConfig.isMaster() && iMasterService != null) {
+            if (masterFuture != null) {
+                masterFuture.cancel(true);
+            }
+            if (flushFuture != null) {
+                flushFuture.cancel(false);
+            }
+            iMasterService.flushWorker();
         }
     }
 
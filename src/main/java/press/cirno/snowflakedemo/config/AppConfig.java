@@ -16,9 +16,112 @@ public class AppConfig {
     @Value("${sf.master.enabled}")
     private boolean master = false;
 
+    // 虚拟线程：Tomcat 请求处理（由 Spring Boot 接管）与注册、心跳、补充等阻塞调用，需 JDK 21+，低版本退回平台线程
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads = false;
+
+    // 注册表变更写回数据库的间隔（毫秒）
+    @Value("${sf.master.flush-interval}")
+    private long flushInterval = 1000L;
+
+    // Worker ID 释放后的隔离时间（毫秒），须覆盖心跳周期与最大时钟回拨
+    @Value("${sf.master.id-quarantine}")
+    private long idQuarantine = 15000L;
+
+    // /master/id 选择 Worker 的策略：random/weighted/p2c/least-loaded
+    @Value("${sf.master.routing-strategy}")
+    private String routingStrategy = "random";
+
+    // 代理模式：/master/id 直接从本地 ID 池返回，不再重定向
+    @Value("${sf.master.proxy.enabled}")
+    private boolean proxy = false;
+
+    // 代理模式单次从 Worker 拉取的 ID 数量
+    @Value("${sf.master.proxy.batch-size}")
+    private int proxyBatchSize = 1000;
+
+    // 代理模式池内剩余低于该值时异步补充
+    @Value("${sf.master.proxy.low-water}")
+    private int proxyLowWater = 2000;
+
+    // /master/directory 长轮询的最长挂起时间（毫秒），客户端请求的等待时间超出时按此截断
+    @Value("${sf.master.directory.max-wait}")
+    private long directoryMaxWait = 30000L;
+
     @Value("${sf.worker.enabled}")
     private boolean worker = false;
 
+    // 注册用的 IP / Mac，留空自动获取；同一主机部署多个 Worker（如压测）时须各自指定
+    @Value("${sf.worker.ip}")
+    private String workerIp = "";
+
+    @Value("${sf.worker.mac}")
+    private String workerMac = "";
+
+    // 单进程申领的 Worker ID 数量，每个 ID 一个独立生成器条带
+    @Value("${sf.worker.stripes}")
+    private int stripes = 1;
+
+    // 单次批量获取 ID 的数量上限
+    @Value("${sf.worker.batch-max-count}")
+    private int batchMaxCount = 4096;
+
+    // 命名空间（/worker/id/{namespace}）：各命名空间独立的序列号状态，互不挤占序列号与锁
+    // 预先声明的命名空间，逗号分隔
+    @Value("${sf.worker.namespace.names}")
+    private String namespaceNames = "";
+
+    // 跨命名空间唯一：为每个声明的命名空间单独申领 Worker ID，只接受声明的命名空间；
+    // 关闭时各命名空间共用本节点的 Worker ID，不同命名空间的 ID 可能相同
+    @Value("${sf.worker.namespace.unique}")
+    private boolean namespaceUnique = false;
+
+    // 非唯一模式下按需创建的命名空间数量上限，含声明的命名空间
+    @Value("${sf.worker.namespace.max-count}")
+    private int namespaceMaxCount = 64;
+
+    // 异步模式：当前毫秒序列号耗尽时请求挂起为 DeferredResult，由 tick 线程在下一毫秒批量完成，不占用请求线程
+    @Value("${sf.worker.async.enabled}")
+    private boolean asyncEnabled = false;
+
+    // 挂起请求的超时时间（毫秒），超时返回 -1
+    @Value("${sf.worker.async.timeout}")
+    private long asyncTimeout = 1000L;
+
+    // 挂起请求数上限，超出时直接返回 -1
+    @Value("${sf.worker.async.max-pending}")
+    private int asyncMaxPending = 65536;
+
+    // 二进制 TCP 端点，与 HTTP 服务并行
+    @Value("${sf.worker.tcp.enabled}")
+    private boolean tcpEnabled = false;
+
+    @Value("${sf.worker.tcp.port}")
+    private int tcpPort = 8081;
+
+    // I/O 线程数，与 Tomcat 线程池无关
+    @Value("${sf.worker.tcp.io-threads}")
+    private int tcpIoThreads = 2;
+
+    @Value("${sf.worker.tcp.backlog}")
+    private int tcpBacklog = 1024;
+
+    // 每个连接的输出缓冲大小（字节），至少容纳一次最大批量的响应
+    @Value("${sf.worker.tcp.buffer-size}")
+    private int tcpBufferSize = 65536;
+
+    // 已发出时间戳检查点，重启后不再发出不大于检查点的时间戳
+    @Value("${sf.worker.checkpoint.enabled}")
+    private boolean checkpointEnabled = true;
+
+    // 检查点目录，文件按数据中心与 Worker ID 命名，同一主机上的多个 Worker 互不覆盖
+    @Value("${sf.worker.checkpoint.dir}")
+    private String checkpointDir = "snowflake-checkpoint";
+
+    // 检查点写入间隔（毫秒）
+    @Value("${sf.worker.checkpoint.interval}")
+    private long checkpointInterval = 200L;
+
     // 回拨解决策略：reject/wait/auto
     @Value("${sf.algo.clock-drift-strategy}")
     private String clockDriftStrategy = "auto";
@@ -27,6 +130,51 @@ public class AppConfig {
     @Value("${sf.algo.wait-time}")
     private long waitTime = 30L;
 
+    // 借用未来毫秒：序列号耗尽时逻辑时间戳最多领先系统时钟的毫秒数，0 为不借用
+    @Value("${sf.algo.borrow-limit}")
+    private long borrowLimit = 0L;
+
+    // ID 生成器实现：lock（兼容旧值 synchronized）/cas/combining
+    @Value("${sf.algo.generator}")
+    private String generator = "lock";
+
+    // 生成器时间源：system 每次读系统时钟 / ticking 后台线程推进的单调时钟
+    @Value("${sf.algo.time-source}")
+    private String timeSource = "system";
+
+    // 等待下一毫秒的方式：spin/yield/park
+    @Value("${sf.algo.wait-strategy}")
+    private String waitStrategy = "spin";
+
+    // 预生成环形缓冲
+    @Value("${sf.algo.buffer.enabled}")
+    private boolean bufferEnabled = false;
+
+    // 缓冲大小，向上取整为 2 的幂
+    @Value("${sf.algo.buffer.size}")
+    private int bufferSize = 8192;
+
+    // 剩余量低于该百分比时补充
+    @Value("${sf.algo.buffer.refill-threshold}")
+    private int bufferRefillThreshold = 50;
+
+    // 位布局：时间戳 + 数据中心 + 机器码 + 序列号，共 63 位，Master 与 Worker 需一致
+    @Value("${sf.algo.layout.timestamp-bits}")
+    private int timestampBits = 41;
+
+    @Value("${sf.algo.layout.datacenter-bits}")
+    private int datacenterBits = 0;
+
+    @Value("${sf.algo.layout.worker-bits}")
+    private int workerBits = 10;
+
+    @Value("${sf.algo.layout.sequence-bits}")
+    private int sequenceBits = 12;
+
+    // 数据中心 ID，数据中心位数为 0 时忽略
+    @Value("${sf.algo.datacenter-id}")
+    private long datacenterId = 0L;
+
     @Value("${sf.algo.start-time}")
     private String startTime = "2024-08-12 08:12:00";
 }
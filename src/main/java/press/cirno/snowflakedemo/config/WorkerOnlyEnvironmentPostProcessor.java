@@ -0,0 +1,48 @@
+package press.cirno.snowflakedemo.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 纯 Worker 节点不加载持久层<br >
+ * sf.master.enabled 为 false 时排除数据源、JPA 与 Repository 自动配置，无需配置数据库即可启动；
+ * 在配置文件加载之后执行，保留用户已配置的排除项
+ */
+public class WorkerOnlyEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+    private static final String EXCLUDE = "spring.autoconfigure.exclude";
+    private static final List<String> PERSISTENCE = List.of(
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration",
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration"
+    );
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.getProperty("sf.master.enabled", Boolean.class, false)) {
+            return;
+        }
+        Set<String> excludes = new LinkedHashSet<>(
+                StringUtils.commaDelimitedListToSet(environment.getProperty(EXCLUDE, ""))
+        );
+        excludes.addAll(PERSISTENCE);
+        environment.getPropertySources().addFirst(new MapPropertySource(
+                "snowflakeWorkerOnly",
+                Map.of(EXCLUDE, String.join(",", excludes))
+        ));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
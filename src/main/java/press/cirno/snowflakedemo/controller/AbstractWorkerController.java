@@ -0,0 +1,51 @@
+package press.cirno.snowflakedemo.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.service.IWorkerService;
+
+/**
+ * Worker 端点的公共部分：批量获取 ID<br >
+ * 单个 ID 端点由同步（{@link WorkerController}）或异步（{@link AsyncWorkerController}）子类按配置提供
+ */
+public abstract class AbstractWorkerController {
+    protected final IWorkerService workerService;
+
+    protected AbstractWorkerController(IWorkerService workerService) {
+        this.workerService = workerService;
+    }
+
+    /**
+     * 批量获取 ID，数量上限由 sf.worker.batch-max-count 限制
+     *
+     * @param count 数量
+     * @return ID 数组 || 空数组
+     */
+    @GetMapping("/ids")
+    public long[] getIds(@RequestParam(defaultValue = "1") int count) {
+        try {
+            return workerService.nextIds(count);
+        } catch (WorkerManagementException | TimeAccuracyException e) {
+            return new long[0];
+        }
+    }
+
+    /**
+     * 在命名空间内批量获取 ID，数量上限由 sf.worker.batch-max-count 限制
+     *
+     * @param namespace 命名空间
+     * @param count     数量
+     * @return ID 数组 || 空数组
+     */
+    @GetMapping("/ids/{namespace}")
+    public long[] getIds(@PathVariable String namespace, @RequestParam(defaultValue = "1") int count) {
+        try {
+            return workerService.nextIds(namespace, count);
+        } catch (WorkerManagementException | TimeAccuracyException e) {
+            return new long[0];
+        }
+    }
+}
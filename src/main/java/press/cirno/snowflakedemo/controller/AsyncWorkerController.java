@@ -0,0 +1,49 @@
+package press.cirno.snowflakedemo.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import press.cirno.snowflakedemo.service.IWorkerService;
+import press.cirno.snowflakedemo.worker.DeferredIdDispatcher;
+
+/**
+ * 异步模式（sf.worker.async.enabled=true）的 Worker 端点<br >
+ * 序列号耗尽时不阻塞 Servlet 线程，请求挂起到下一毫秒由 {@link DeferredIdDispatcher} 完成
+ */
+@RestController
+@RequestMapping("/worker")
+@ConditionalOnProperty(name = "sf.worker.async.enabled", havingValue = "true")
+public class AsyncWorkerController extends AbstractWorkerController {
+    private final DeferredIdDispatcher dispatcher;
+
+    @Autowired
+    public AsyncWorkerController(IWorkerService workerService, DeferredIdDispatcher dispatcher) {
+        super(workerService);
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * 获取 ID
+     *
+     * @return ID || -1: 未注册、时钟回拨、挂起数超限或超时
+     */
+    @GetMapping("/id")
+    public DeferredResult<Long> getId() {
+        return dispatcher.nextId(null);
+    }
+
+    /**
+     * 在命名空间内获取 ID
+     *
+     * @param namespace 命名空间
+     * @return ID || -1: 未注册、时钟回拨、命名空间不可用、挂起数超限或超时
+     */
+    @GetMapping("/id/{namespace}")
+    public DeferredResult<Long> getId(@PathVariable String namespace) {
+        return dispatcher.nextId(namespace);
+    }
+}
@@ -3,25 +3,38 @@ package press.cirno.snowflakedemo.controller;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import press.cirno.snowflakedemo.config.AppConfig;
 import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.pojo.DirectorySnapshot;
 import press.cirno.snowflakedemo.pojo.HeartbeatBody;
 import press.cirno.snowflakedemo.pojo.RegistryBody;
 import press.cirno.snowflakedemo.pojo.StandardResponse;
 import press.cirno.snowflakedemo.service.IMasterService;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
 @RequestMapping("/master")
+@ConditionalOnProperty(name = "sf.master.enabled", havingValue = "true")
 public class MasterController {
     private final IMasterService masterService;
+    private final AppConfig appConfig;
 
     @Autowired
-    public MasterController(IMasterService masterService) {
+    public MasterController(IMasterService masterService, AppConfig appConfig) {
         this.masterService = masterService;
+        this.appConfig = appConfig;
     }
 
     /**
@@ -34,9 +47,12 @@ public class MasterController {
     public StandardResponse<Integer> registry(@RequestBody @Validated RegistryBody body) {
         Integer workerId = masterService.registry(body);
         if (workerId == -1) {
-            return StandardResponse.fail("同 IP / Mac 节点已注册过");
+            return StandardResponse.fail("同 IP / Mac / 条带节点已注册过");
         } else if (workerId == -2) {
             return StandardResponse.fail("节点已满");
+        } else if (workerId == -3) {
+            // 单独的错误码，Worker 据此等待而不计入重试次数
+            return StandardResponse.fail(-3, "Master 启动不久，Worker ID 隔离中，稍后重试");
         } else {
             return StandardResponse.success(workerId);
         }
@@ -59,8 +75,8 @@ public class MasterController {
     }
 
     /**
-     * 对外的 ID 生成接口，基于简单随机的负载均衡<br >
-     * 返回一个 301 重定向到随机 Worker 的 ID 端点
+     * 对外的 ID 生成接口，按 sf.master.routing-strategy 配置的策略（随机 / 加权 / 二选一 / 最小负载）选择 Worker<br >
+     * 默认返回一个 301 重定向到所选 Worker 的 ID 端点；代理模式下直接从本地 ID 池返回
      *
      * @param response HttpServletResponse
      * @throws IOException 重定向可能抛错
@@ -68,6 +84,11 @@ public class MasterController {
     @GetMapping("/id")
     public void getId(HttpServletResponse response) throws IOException {
         try {
+            if (appConfig.isProxy()) {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write(Long.toString(masterService.nextId()));
+                return;
+            }
             String worker = masterService.getWorker() + "worker/id";
             log.warn("Redirect to {}", worker);
             // 返回一个 301 重定向
@@ -78,6 +99,83 @@ public class MasterController {
         }
     }
 
+    /**
+     * Worker 列表接口，供客户端发现 Worker 后直连批量获取 ID
+     *
+     * @return 成功信息 + Worker 地址列表
+     */
+    @GetMapping("/workers")
+    public StandardResponse<List<String>> workers() {
+        return StandardResponse.success(masterService.getWorkers());
+    }
+
+    /**
+     * Worker 目录接口，响应带 ETag（目录版本）<br >
+     * 请求带 If-None-Match 且与当前版本一致时：wait 为 0 立即返回 304；否则挂起到目录变更（返回新目录）或等待超时（返回 304），
+     * 客户端据此缓存目录并直连 Worker，Worker 注册、注销、心跳超时后即时获知
+     *
+     * @param ifNoneMatch 客户端缓存的目录 ETag
+     * @param wait        最长等待时间（毫秒），上限 sf.master.directory.max-wait
+     * @return 成功信息 + 目录 || 304
+     */
+    @GetMapping("/directory")
+    public DeferredResult<ResponseEntity<StandardResponse<DirectorySnapshot>>> directory(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(defaultValue = "0") long wait) {
+        long timeout = Math.max(1L, Math.min(wait, appConfig.getDirectoryMaxWait()));
+        DeferredResult<ResponseEntity<StandardResponse<DirectorySnapshot>>> result = new DeferredResult<>(timeout);
+        DirectorySnapshot current = masterService.getDirectory();
+        long version = parseETag(ifNoneMatch);
+        if (version != current.getVersion()) {
+            result.setResult(directoryResponse(current));
+            return result;
+        }
+        if (wait <= 0L) {
+            result.setResult(notModified(current));
+            return result;
+        }
+        CompletableFuture<DirectorySnapshot> watcher = masterService.watchDirectory(version);
+        watcher.thenAccept(snapshot -> result.setResult(directoryResponse(snapshot)));
+        result.onTimeout(() -> {
+            watcher.cancel(false);
+            result.setResult(notModified(current));
+        });
+        result.onCompletion(() -> watcher.cancel(false));
+        return result;
+    }
+
+    private static ResponseEntity<StandardResponse<DirectorySnapshot>> directoryResponse(DirectorySnapshot snapshot) {
+        return ResponseEntity.ok()
+                .eTag(Long.toString(snapshot.getVersion()))
+                .body(StandardResponse.success(snapshot));
+    }
+
+    private static ResponseEntity<StandardResponse<DirectorySnapshot>> notModified(DirectorySnapshot snapshot) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(Long.toString(snapshot.getVersion()))
+                .build();
+    }
+
+    /**
+     * @param eTag If-None-Match 请求头，如 "12" 或 W/"12"
+     * @return 版本 || -1: 无或无法解析
+     */
+    private static long parseETag(String eTag) {
+        if (eTag == null) {
+            return -1L;
+        }
+        String value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
     /**
      * Worker 注销接口
      *
@@ -1,7 +1,9 @@
 package press.cirno.snowflakedemo.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import press.cirno.snowflakedemo.exception.TimeAccuracyException;
@@ -10,12 +12,12 @@ import press.cirno.snowflakedemo.service.IWorkerService;
 
 @RestController
 @RequestMapping("/worker")
-public class WorkerController {
-    private final IWorkerService workerService;
+@ConditionalOnProperty(name = "sf.worker.async.enabled", havingValue = "false", matchIfMissing = true)
+public class WorkerController extends AbstractWorkerController {
 
     @Autowired
     public WorkerController(IWorkerService workerService) {
-        this.workerService = workerService;
+        super(workerService);
     }
 
     /**
@@ -31,4 +33,19 @@ public class WorkerController {
             return -1;
         }
     }
+
+    /**
+     * 在命名空间内获取 ID，各命名空间的序列号互不挤占
+     *
+     * @param namespace 命名空间
+     * @return ID || -1: 未注册、时钟回拨或命名空间不可用
+     */
+    @GetMapping("/id/{namespace}")
+    public long getId(@PathVariable String namespace) {
+        try {
+            return workerService.nextId(namespace);
+        } catch (WorkerManagementException | TimeAccuracyException e) {
+            return -1;
+        }
+    }
 }
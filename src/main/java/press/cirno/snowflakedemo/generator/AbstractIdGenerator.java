@@ -0,0 +1,246 @@
+package press.cirno.snowflakedemo.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+
+/**
+ * 生成器公共部分：位布局、回拨处理、时间获取<br >
+ * 时间读取与等待方式由 {@link ITimeSource}、{@link IWaitStrategy} 决定<br >
+ * 位布局由 {@link BitLayout} 决定，默认 41 位时间戳 + 10 位机器码 + 12 位序列号
+ */
+@Slf4j
+public abstract class AbstractIdGenerator implements IIdGenerator {
+    // 非阻塞批量生成暂无可用序列号时的返回值
+    protected static final long[] NO_IDS = new long[0];
+
+    protected final int sequenceBits;
+    protected final long sequenceMask;
+    protected final int timestampShift;
+    // 数据中心 + 机器码部分，对同一生成器恒定
+    protected final long nodeBits;
+    // 相对起始时间可表示的最大时间戳
+    protected final long maxTimestamp;
+
+    protected final long workerId;
+    protected final long startTime;
+    protected final String clockDriftStrategy;
+    protected final long waitTime;
+    protected final long borrowLimit;
+    protected final long timestampFloor;
+    protected final GeneratorStats stats;
+    protected final ITimeSource timeSource;
+    protected final IWaitStrategy waitStrategy;
+    // 非阻塞模式下最近一次序列号耗尽的毫秒，同一毫秒只计一次
+    private volatile long lastExhausted = Long.MIN_VALUE;
+
+    protected AbstractIdGenerator(GeneratorContext context) {
+        BitLayout layout = context.getLayout();
+        this.sequenceBits = layout.getSequenceBits();
+        this.sequenceMask = layout.getSequenceMask();
+        this.timestampShift = layout.getTimestampShift();
+        this.maxTimestamp = layout.getMaxTimestamp();
+        this.nodeBits = (context.getDatacenterId() << layout.getDatacenterShift())
+                | (context.getWorkerId() << layout.getWorkerShift());
+        this.workerId = context.getWorkerId();
+        this.startTime = context.getStartTime();
+        this.clockDriftStrategy = context.getClockDriftStrategy();
+        this.waitTime = context.getWaitTime();
+        this.borrowLimit = context.getBorrowLimit();
+        this.timestampFloor = context.getTimestampFloor();
+        this.stats = context.getStats();
+        this.timeSource = context.getTimeSource();
+        this.waitStrategy = context.getWaitStrategy();
+    }
+
+    /**
+     * 初始的上次时间戳：当前时间未超过时间戳下限时取下限，并视为该毫秒序列号已耗尽
+     *
+     * @return 初始时间戳
+     */
+    protected long initialTimestamp() {
+        return Math.max(getTime(), timestampFloor);
+    }
+
+    /**
+     * @param initialTimestamp 初始时间戳
+     * @return 初始时间戳对应的已用序列号
+     */
+    protected long initialSequence(long initialTimestamp) {
+        return initialTimestamp == timestampFloor ? sequenceMask : 0L;
+    }
+
+    /**
+     * 按回拨策略处理时钟回拨
+     *
+     * @param timestamp     当前时间戳
+     * @param lastTimestamp 上次时间戳
+     * @return 不小于上次时间戳的时间戳
+     * @throws TimeAccuracyException 回拨超出容忍范围，拒绝生成
+     */
+    protected long tolerateClockDrift(long timestamp, long lastTimestamp) {
+        while (timestamp < lastTimestamp) {
+            checkClockDrift(timestamp, lastTimestamp);
+            stats.recordClockDriftWait();
+            timestamp = waitNextMillis(lastTimestamp);
+        }
+        return timestamp;
+    }
+
+    /**
+     * 回拨是否在回拨策略的容忍范围内：auto 30 ms 内，wait 最长等待时间内
+     *
+     * @param timestamp     当前时间戳
+     * @param lastTimestamp 上次时间戳
+     * @throws TimeAccuracyException 回拨超出容忍范围，拒绝生成
+     */
+    protected void checkClockDrift(long timestamp, long lastTimestamp) {
+        long drift = lastTimestamp - timestamp;
+        if ((drift <= 30L && clockDriftStrategy.equalsIgnoreCase("auto"))
+                || (clockDriftStrategy.equalsIgnoreCase("wait") && drift <= waitTime)) {
+            return;
+        }
+        stats.recordClockDriftReject();
+        log.error("时钟回拨，拒绝生成 ID");
+        throw new TimeAccuracyException("时钟回拨，拒绝生成 ID");
+    }
+
+    /**
+     * 取当前时间戳，借用期间系统时钟落后于上次时间戳属正常，沿用上次时间戳；超出借用上限才按回拨处理
+     *
+     * @param lastTimestamp 上次时间戳
+     * @return 不小于上次时间戳的时间戳
+     * @throws TimeAccuracyException 回拨超出容忍范围，拒绝生成
+     */
+    protected long currentTimestamp(long lastTimestamp) {
+        long timestamp = getTime();
+        if (timestamp < lastTimestamp && lastTimestamp - timestamp <= borrowLimit) {
+            return lastTimestamp;
+        }
+        return tolerateClockDrift(timestamp, lastTimestamp);
+    }
+
+    /**
+     * 非阻塞地取当前时间戳，可容忍的回拨不等待
+     *
+     * @param lastTimestamp 上次时间戳
+     * @return 不小于上次时间戳的时间戳 || {@link IIdGenerator#UNAVAILABLE}: 回拨中，等时钟追上后重试
+     * @throws TimeAccuracyException 回拨超出容忍范围，拒绝生成
+     */
+    protected long tryCurrentTimestamp(long lastTimestamp) {
+        long timestamp = getTime();
+        if (timestamp >= lastTimestamp) {
+            return timestamp;
+        }
+        if (lastTimestamp - timestamp <= borrowLimit) {
+            return lastTimestamp;
+        }
+        checkClockDrift(timestamp, lastTimestamp);
+        return UNAVAILABLE;
+    }
+
+    /**
+     * 非阻塞地取下一个时间戳，需要等待系统时钟时不等待
+     *
+     * @param lastTimestamp 上次时间戳
+     * @return 大于上次时间戳的时间戳 || {@link IIdGenerator#UNAVAILABLE}: 序列号耗尽，下一毫秒重试
+     */
+    protected long tryNextMillis(long lastTimestamp) {
+        long timestamp = getTime();
+        if (timestamp > lastTimestamp) {
+            return timestamp;
+        }
+        if (borrowLimit > 0L && lastTimestamp + 1 - timestamp <= borrowLimit) {
+            stats.recordBorrow();
+            return lastTimestamp + 1;
+        }
+        if (lastExhausted != lastTimestamp) {
+            lastExhausted = lastTimestamp;
+            stats.recordExhaustionWait();
+        }
+        return UNAVAILABLE;
+    }
+
+    /**
+     * 当前毫秒序列号耗尽，取下一个时间戳<br >
+     * 借用模式下逻辑时间戳直接推进到下一毫秒，领先系统时钟超过借用上限时才等待系统时钟追上
+     *
+     * @param lastTimestamp 上次时间戳
+     * @return 大于上次时间戳的时间戳
+     */
+    protected long nextMillis(long lastTimestamp) {
+        if (borrowLimit <= 0L) {
+            return waitExhausted(lastTimestamp);
+        }
+        long timestamp = getTime();
+        if (lastTimestamp + 1 - timestamp > borrowLimit) {
+            timestamp = waitExhausted(lastTimestamp - borrowLimit);
+        } else {
+            stats.recordBorrow();
+        }
+        return Math.max(timestamp, lastTimestamp + 1);
+    }
+
+    /**
+     * 等待到下一毫秒
+     *
+     * @param lastTimestamp 上次时间戳
+     * @return 等待到的时间戳
+     */
+    protected long waitNextMillis(long lastTimestamp) {
+        long begin = System.nanoTime();
+        long timestamp = getTime();
+        while (timestamp <= lastTimestamp) {
+            waitStrategy.idle();
+            timestamp = getTime();
+        }
+        stats.recordWait(System.nanoTime() - begin);
+        return timestamp;
+    }
+
+    /**
+     * 当前毫秒序列号耗尽，等待到下一毫秒
+     *
+     * @param lastTimestamp 上次时间戳
+     * @return 等待到的时间戳
+     */
+    protected long waitExhausted(long lastTimestamp) {
+        stats.recordExhaustionWait();
+        return waitNextMillis(lastTimestamp);
+    }
+
+    /**
+     * 获取当前时间戳
+     *
+     * @return 时间戳
+     */
+    protected long getTime() {
+        return timeSource.currentTimeMillis();
+    }
+
+    /**
+     * 从 ID 中解析时间戳
+     *
+     * @param id ID
+     * @return 时间戳
+     */
+    protected long timestampOf(long id) {
+        return (id >>> timestampShift) + startTime;
+    }
+
+    /**
+     * 拼装 ID
+     *
+     * @param timestamp 时间戳
+     * @param sequence  序列号
+     * @return ID
+     * @throws TimeAccuracyException 时间戳早于起始时间或超出时间戳位数可表示的范围，拒绝生成
+     */
+    protected long compose(long timestamp, long sequence) {
+        long delta = timestamp - startTime;
+        if (delta < 0L || delta > maxTimestamp) {
+            log.error("时间戳 {} 超出位布局可表示的范围，拒绝生成 ID", timestamp);
+            throw new TimeAccuracyException("时间戳超出位布局可表示的范围，拒绝生成 ID");
+        }
+        return (delta << timestampShift) | nodeBits | sequence;
+    }
+}
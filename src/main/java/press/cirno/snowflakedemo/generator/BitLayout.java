@@ -0,0 +1,79 @@
+package press.cirno.snowflakedemo.generator;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import press.cirno.snowflakedemo.config.AppConfig;
+
+/**
+ * 雪花算法位布局<br >
+ * 时间戳 + 数据中心（可为 0 位）+ 机器码 + 序列号，共 63 位；移位与掩码在构造时一次算好
+ */
+@Slf4j
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+public class BitLayout {
+    public static final BitLayout DEFAULT = new BitLayout(41, 0, 10, 12);
+
+    @ToString.Include
+    private final int timestampBits;
+    @ToString.Include
+    private final int datacenterBits;
+    @ToString.Include
+    private final int workerBits;
+    @ToString.Include
+    private final int sequenceBits;
+
+    private final long sequenceMask;
+    private final int workerShift;
+    private final int datacenterShift;
+    private final int timestampShift;
+    private final long maxWorkerId;
+    private final long maxDatacenterId;
+    // 相对起始时间可表示的最大时间戳，超出后会溢出到符号位或节点位
+    private final long maxTimestamp;
+
+    /**
+     * @throws IllegalArgumentException 位数不合法或总和不为 63
+     */
+    public BitLayout(int timestampBits, int datacenterBits, int workerBits, int sequenceBits) {
+        if (timestampBits < 1 || datacenterBits < 0 || workerBits < 1 || sequenceBits < 1
+                || timestampBits + datacenterBits + workerBits + sequenceBits != 63) {
+            throw new IllegalArgumentException("位布局不合法，各部分位数之和必须为 63");
+        }
+        this.timestampBits = timestampBits;
+        this.datacenterBits = datacenterBits;
+        this.workerBits = workerBits;
+        this.sequenceBits = sequenceBits;
+        this.sequenceMask = (1L << sequenceBits) - 1;
+        this.workerShift = sequenceBits;
+        this.datacenterShift = sequenceBits + workerBits;
+        this.timestampShift = sequenceBits + workerBits + datacenterBits;
+        this.maxWorkerId = (1L << workerBits) - 1;
+        this.maxDatacenterId = (1L << datacenterBits) - 1;
+        this.maxTimestamp = (1L << timestampBits) - 1;
+    }
+
+    /**
+     * 按配置创建位布局<br >
+     * 配置不合法时不回退到默认布局：Master 与 Worker 布局不一致会产生重复 ID，须启动失败
+     *
+     * @param appConfig 应用配置
+     * @return 位布局
+     * @throws IllegalStateException 位布局配置不合法
+     */
+    public static BitLayout of(AppConfig appConfig) {
+        try {
+            return new BitLayout(
+                    appConfig.getTimestampBits(),
+                    appConfig.getDatacenterBits(),
+                    appConfig.getWorkerBits(),
+                    appConfig.getSequenceBits()
+            );
+        } catch (IllegalArgumentException e) {
+            log.error("{}: {}/{}/{}/{}", e.getMessage(), appConfig.getTimestampBits(), appConfig.getDatacenterBits(),
+                    appConfig.getWorkerBits(), appConfig.getSequenceBits());
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+}
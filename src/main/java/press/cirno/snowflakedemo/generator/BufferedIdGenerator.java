@@ -0,0 +1,266 @@
+package press.cirno.snowflakedemo.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 预生成环形缓冲生成器<br >
+ * 后台生产线程提前填充固定大小的环形缓冲，请求线程只弹出槽位；缓冲为空时退回底层生成器<br >
+ * 检测到时钟回拨时清空缓冲，回拨前生成的 ID 不会再发出<br >
+ * 退回底层生成器取得的 ID 可能新于生产线程正在填充的一段，之后弹出的槽位不大于已退回发出的 ID 时清空缓冲，
+ * 同一线程取得的 ID 保持递增
+ */
+@Slf4j
+public class BufferedIdGenerator extends AbstractIdGenerator {
+    private final IIdGenerator delegate;
+    // 单次填充上限，一毫秒的序列号
+    private final int fillChunk;
+    private final long[] slots;
+    private final int mask;
+    private final int refillThreshold;
+
+    // 消费游标 / 生产游标，单调递增，各自独占缓存行
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0L);
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0L);
+
+    // 已入队 ID 的最大时间戳，当前时间加借用上限仍小于它即发生回拨
+    private volatile long lastFilledTimestamp;
+    // 缓冲为空时退回底层生成器发出的最大 ID，只在退回时写入
+    private final PaddedAtomicLong fallbackId = new PaddedAtomicLong(0L);
+    private volatile boolean running = true;
+    private final Thread producer;
+
+    /**
+     * @param context          生成器参数
+     * @param delegate         底层生成器
+     * @param bufferSize       缓冲大小，向上取整为 2 的幂
+     * @param refillPercentage 剩余量低于该百分比时唤醒生产线程
+     */
+    public BufferedIdGenerator(GeneratorContext context, IIdGenerator delegate, int bufferSize, int refillPercentage) {
+        super(context);
+        this.delegate = delegate;
+        this.fillChunk = (int) Math.min(sequenceMask + 1, 1 << 16);
+        int size = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.slots = new long[size];
+        this.mask = size - 1;
+        this.refillThreshold = (int) ((long) size * Math.min(Math.max(refillPercentage, 1), 100) / 100);
+        this.lastFilledTimestamp = getTime();
+        this.producer = new Thread(this::produce, "id-buffer-producer");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @Override
+    public long nextId() {
+        long id = poll();
+        return id != UNAVAILABLE ? id : fallback(delegate.nextId());
+    }
+
+    @Override
+    public long tryNextId() {
+        long id = poll();
+        if (id != UNAVAILABLE) {
+            return id;
+        }
+        id = delegate.tryNextId();
+        return id != UNAVAILABLE ? fallback(id) : id;
+    }
+
+    /**
+     * 记录退回底层生成器发出的 ID
+     *
+     * @param id ID
+     * @return 原 ID
+     */
+    private long fallback(long id) {
+        if (id > fallbackId.get()) {
+            fallbackId.accumulateAndGet(id, Math::max);
+        }
+        return id;
+    }
+
+    /**
+     * 弹出一个槽位
+     *
+     * @return ID || {@link #UNAVAILABLE}: 缓冲为空或发生回拨，由调用方退回底层生成器
+     */
+    private long poll() {
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+            if (h >= t) {
+                LockSupport.unpark(producer);
+                return UNAVAILABLE;
+            }
+            if (rolledBack()) {
+                flush(true);
+                return UNAVAILABLE;
+            }
+            // 先读后 CAS：head 推进前生产线程不会覆盖该槽位
+            long id = slots[(int) (h & mask)];
+            if (id <= fallbackId.get()) {
+                flush(false);
+                return UNAVAILABLE;
+            }
+            if (head.compareAndSet(h, h + 1)) {
+                if (t - h - 1 == refillThreshold) {
+                    LockSupport.unpark(producer);
+                }
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long[] polled = pollIds(count);
+        if (polled.length == count) {
+            return polled;
+        }
+        long[] ids = Arrays.copyOf(polled, count);
+        System.arraycopy(delegate.nextIds(count - polled.length), 0, ids, polled.length, count - polled.length);
+        fallback(ids[count - 1]);
+        return ids;
+    }
+
+    /**
+     * 缓冲内有 ID 时只弹出缓冲内的部分，不再向底层生成器补足；缓冲为空时退回底层生成器的非阻塞批量生成
+     */
+    @Override
+    public long[] tryNextIds(int count) {
+        long[] ids = pollIds(count);
+        if (ids.length > 0) {
+            return ids;
+        }
+        ids = delegate.tryNextIds(count);
+        if (ids.length > 0) {
+            fallback(ids[ids.length - 1]);
+        }
+        return ids;
+    }
+
+    /**
+     * 弹出至多 count 个连续槽位
+     *
+     * @param count 最大数量
+     * @return ID || 空数组: 缓冲为空或发生回拨，由调用方退回底层生成器
+     */
+    private long[] pollIds(int count) {
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+            int n = (int) Math.min(count, t - h);
+            if (n > 0 && rolledBack()) {
+                flush(true);
+                n = 0;
+            } else if (n > 0 && slots[(int) (h & mask)] <= fallbackId.get()) {
+                flush(false);
+                n = 0;
+            }
+            if (n <= 0) {
+                LockSupport.unpark(producer);
+                return NO_IDS;
+            }
+            long[] ids = new long[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = slots[(int) ((h + i) & mask)];
+            }
+            if (head.compareAndSet(h, h + n)) {
+                if (t - h - n <= refillThreshold) {
+                    LockSupport.unpark(producer);
+                }
+                return ids;
+            }
+        }
+    }
+
+    /**
+     * 缓冲内的 ID 是否领先当前时钟超过借用上限<br >
+     * 先读已入队的最大时间戳再读时钟：反过来读时生产线程可能在两次读取之间按更新的时钟入队，被误判为回拨而清空缓冲
+     *
+     * @return 是否发生回拨
+     */
+    private boolean rolledBack() {
+        long filled = lastFilledTimestamp;
+        return getTime() + borrowLimit < filled;
+    }
+
+    /**
+     * 丢弃缓冲内全部 ID
+     *
+     * @param rollback 是否因时钟回拨丢弃 || false: 缓冲内的 ID 早于已退回发出的 ID
+     */
+    private void flush(boolean rollback) {
+        long t = tail.get();
+        long h = head.get();
+        while (h < t && !head.compareAndSet(h, t)) {
+            h = head.get();
+        }
+        if (h < t) {
+            if (rollback) {
+                log.warn("时钟回拨，丢弃缓冲内 {} 个 ID", t - h);
+            } else {
+                log.debug("缓冲内的 ID 早于已退回发出的 ID，丢弃 {} 个", t - h);
+            }
+        }
+    }
+
+    /**
+     * 生产线程：剩余量不高于阈值时填满缓冲，否则挂起等待唤醒
+     */
+    private void produce() {
+        while (running) {
+            long t = tail.get();
+            long free = slots.length - (t - head.get());
+            if (slots.length - free > refillThreshold) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            try {
+                while (free > 0 && running) {
+                    long[] ids = delegate.nextIds((int) Math.min(free, fillChunk));
+                    long newest = timestampOf(ids[ids.length - 1]);
+                    if (getTime() + borrowLimit < newest) {
+                        // 生成途中发生回拨，整段丢弃
+                        break;
+                    }
+                    for (int i = 0; i < ids.length; i++) {
+                        slots[(int) ((t + i) & mask)] = ids[i];
+                    }
+                    // 先发布时间戳再推进游标，消费者看到新槽位时一定能看到对应时间戳
+                    lastFilledTimestamp = newest;
+                    t += ids.length;
+                    tail.set(t);
+                    free = slots.length - (t - head.get());
+                }
+            } catch (TimeAccuracyException e) {
+                flush(true);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } catch (Exception e) {
+                log.error("缓冲填充失败: {}", e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    @Override
+    public double sequenceUsage() {
+        return delegate.sequenceUsage();
+    }
+
+    @Override
+    public long borrowedMillis() {
+        return delegate.borrowedMillis();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(producer);
+        delegate.close();
+    }
+}
@@ -0,0 +1,194 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁生成器<br >
+ * 时间戳与序列号打包进同一个原子字，通过 CAS 推进，请求线程之间不排队
+ */
+public class CasIdGenerator extends AbstractIdGenerator {
+    // 高位相对起始时间的时间戳 + 低位序列号，位宽与 ID 一致，不会溢出
+    private final AtomicLong state;
+
+    public CasIdGenerator(GeneratorContext context) {
+        super(context);
+        long timestamp = initialTimestamp();
+        this.state = new AtomicLong(pack(timestamp, initialSequence(timestamp)));
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = unpackTimestamp(current);
+            // 必须在读取状态之后取时间，否则并发推进会被误判为回拨
+            long timestamp = getTime();
+            long next;
+            boolean borrowed = false;
+            if (timestamp > lastTimestamp) {
+                next = pack(timestamp, 0L);
+            } else if (lastTimestamp - timestamp <= borrowLimit) {
+                // 同一毫秒，或借用期间系统时钟尚未追上逻辑时间戳
+                if ((current & sequenceMask) == sequenceMask) {
+                    // 当前毫秒序列号耗尽
+                    if (lastTimestamp + 1 - timestamp > borrowLimit) {
+                        waitExhausted(lastTimestamp - borrowLimit);
+                        continue;
+                    }
+                    next = pack(lastTimestamp + 1, 0L);
+                    borrowed = true;
+                } else {
+                    next = current + 1;
+                }
+            } else {
+                tolerateClockDrift(timestamp, lastTimestamp);
+                continue;
+            }
+            if (state.compareAndSet(current, next)) {
+                if (borrowed) {
+                    stats.recordBorrow();
+                }
+                stats.recordIssued(1);
+                return compose(unpackTimestamp(next), next & sequenceMask);
+            }
+        }
+    }
+
+    @Override
+    public long tryNextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = unpackTimestamp(current);
+            long timestamp = getTime();
+            long next;
+            boolean borrowed = false;
+            if (timestamp > lastTimestamp) {
+                next = pack(timestamp, 0L);
+            } else if (lastTimestamp - timestamp <= borrowLimit) {
+                if ((current & sequenceMask) == sequenceMask) {
+                    long nextTimestamp = tryNextMillis(lastTimestamp);
+                    if (nextTimestamp == UNAVAILABLE) {
+                        return UNAVAILABLE;
+                    }
+                    next = pack(nextTimestamp, 0L);
+                    // 借用次数在 tryNextMillis 中记录，CAS 失败重试时可能重复计数，监控允许
+                } else {
+                    next = current + 1;
+                }
+            } else {
+                checkClockDrift(timestamp, lastTimestamp);
+                return UNAVAILABLE;
+            }
+            if (state.compareAndSet(current, next)) {
+                stats.recordIssued(1);
+                return compose(unpackTimestamp(next), next & sequenceMask);
+            }
+        }
+    }
+
+    /**
+     * 每毫秒一次 CAS 预留整段序列号，当前毫秒剩余不足时等待下一毫秒继续
+     */
+    @Override
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long current = state.get();
+            long lastTimestamp = unpackTimestamp(current);
+            long timestamp = getTime();
+            long from;
+            boolean borrowed = false;
+            if (timestamp > lastTimestamp) {
+                from = 0;
+            } else if (lastTimestamp - timestamp <= borrowLimit) {
+                if ((current & sequenceMask) == sequenceMask) {
+                    if (lastTimestamp + 1 - timestamp > borrowLimit) {
+                        waitExhausted(lastTimestamp - borrowLimit);
+                        continue;
+                    }
+                    timestamp = lastTimestamp + 1;
+                    from = 0;
+                    borrowed = true;
+                } else {
+                    timestamp = lastTimestamp;
+                    from = (current & sequenceMask) + 1;
+                }
+            } else {
+                tolerateClockDrift(timestamp, lastTimestamp);
+                continue;
+            }
+            long to = Math.min(sequenceMask, from + (count - filled) - 1);
+            if (state.compareAndSet(current, pack(timestamp, to))) {
+                if (borrowed) {
+                    stats.recordBorrow();
+                }
+                for (long seq = from; seq <= to; seq++) {
+                    ids[filled++] = compose(timestamp, seq);
+                }
+            }
+        }
+        stats.recordIssued(count);
+        return ids;
+    }
+
+    /**
+     * 一次 CAS 预留当前毫秒剩余的序列号，不等待下一毫秒
+     */
+    @Override
+    public long[] tryNextIds(int count) {
+        if (count < 1) {
+            return NO_IDS;
+        }
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = unpackTimestamp(current);
+            long timestamp = getTime();
+            long from;
+            if (timestamp > lastTimestamp) {
+                from = 0;
+            } else if (lastTimestamp - timestamp <= borrowLimit) {
+                if ((current & sequenceMask) == sequenceMask) {
+                    timestamp = tryNextMillis(lastTimestamp);
+                    if (timestamp == UNAVAILABLE) {
+                        return NO_IDS;
+                    }
+                    from = 0;
+                } else {
+                    timestamp = lastTimestamp;
+                    from = (current & sequenceMask) + 1;
+                }
+            } else {
+                checkClockDrift(timestamp, lastTimestamp);
+                return NO_IDS;
+            }
+            long to = Math.min(sequenceMask, from + count - 1);
+            if (state.compareAndSet(current, pack(timestamp, to))) {
+                long[] ids = new long[(int) (to - from + 1)];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = compose(timestamp, from + i);
+                }
+                stats.recordIssued(ids.length);
+                return ids;
+            }
+        }
+    }
+
+    @Override
+    public double sequenceUsage() {
+        return (double) ((state.get() & sequenceMask) + 1) / (sequenceMask + 1);
+    }
+
+    @Override
+    public long borrowedMillis() {
+        return Math.max(0L, unpackTimestamp(state.get()) - getTime());
+    }
+
+    private long pack(long timestamp, long sequence) {
+        return ((timestamp - startTime) << sequenceBits) | sequence;
+    }
+
+    private long unpackTimestamp(long packed) {
+        return (packed >>> sequenceBits) + startTime;
+    }
+}
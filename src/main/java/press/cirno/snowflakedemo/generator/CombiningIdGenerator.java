@@ -0,0 +1,279 @@
+package press.cirno.snowflakedemo.generator;
+
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 合并（flat combining）生成器<br >
+ * 请求线程先把请求发布到槽位，再尝试加锁：抢到锁的线程成为合并者，一次遍历为所有已发布的请求生成 ID，
+ * 其余线程只在自己的槽位上自旋等待结果。高并发下锁只在合并者之间交接，不再逐个请求交接<br >
+ * 线程记住上次使用的槽位，线程池中的线程稳定占用各自的槽位；槽位全部被占时退回直接加锁生成
+ */
+public class CombiningIdGenerator extends AbstractIdGenerator {
+    // 槽位数，超出的并发请求退回直接加锁生成
+    private static final int SLOTS = 256;
+    // 合并者单次持锁最多遍历的轮数，某轮没有请求即提前结束
+    private static final int COMBINE_PASSES = 4;
+    // 等待结果时自旋该次数后让出 CPU；单核上自旋只会挤占合并者，直接让出
+    private static final int SPINS_BEFORE_YIELD = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+    // 槽位状态，合法结果恒为非负或 UNAVAILABLE（-1）
+    private static final long EMPTY = -2L;
+    private static final long REQUEST = -3L;
+    private static final long TRY_REQUEST = -4L;
+    private static final long REJECTED = -5L;
+
+    private static final ThreadLocal<int[]> SLOT_HINT = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PaddedAtomicLong[] slots = new PaddedAtomicLong[SLOTS];
+    // 曾被占用过的最大槽位下标，合并者只遍历到此处
+    private final AtomicInteger highestSlot = new AtomicInteger(0);
+    private long lastTimestamp;
+    private long sequence;
+
+    public CombiningIdGenerator(GeneratorContext context) {
+        super(context);
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new PaddedAtomicLong(EMPTY);
+        }
+        this.lastTimestamp = initialTimestamp();
+        this.sequence = initialSequence(lastTimestamp);
+    }
+
+    @Override
+    public long nextId() {
+        return request(REQUEST);
+    }
+
+    @Override
+    public long tryNextId() {
+        return request(TRY_REQUEST);
+    }
+
+    /**
+     * 批量请求本身已摊薄加锁开销，直接在一次加锁内预留整段序列号
+     */
+    @Override
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        lock.lock();
+        try {
+            while (filled < count) {
+                long timestamp = currentTimestamp(lastTimestamp);
+                long from = 0;
+                if (timestamp == lastTimestamp) {
+                    if (sequence == sequenceMask) {
+                        timestamp = nextMillis(lastTimestamp);
+                    } else {
+                        from = sequence + 1;
+                    }
+                }
+                long to = Math.min(sequenceMask, from + (count - filled) - 1);
+                for (long seq = from; seq <= to; seq++) {
+                    ids[filled++] = compose(timestamp, seq);
+                }
+                sequence = to;
+                lastTimestamp = timestamp;
+            }
+            stats.recordIssued(count);
+        } finally {
+            lock.unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * 在一次加锁内预留当前毫秒剩余的序列号，不等待下一毫秒
+     */
+    @Override
+    public long[] tryNextIds(int count) {
+        if (count < 1) {
+            return NO_IDS;
+        }
+        lock.lock();
+        try {
+            long timestamp = tryCurrentTimestamp(lastTimestamp);
+            if (timestamp == UNAVAILABLE) {
+                return NO_IDS;
+            }
+            long from = 0;
+            if (timestamp == lastTimestamp) {
+                if (sequence == sequenceMask) {
+                    timestamp = tryNextMillis(lastTimestamp);
+                    if (timestamp == UNAVAILABLE) {
+                        return NO_IDS;
+                    }
+                } else {
+                    from = sequence + 1;
+                }
+            }
+            long to = Math.min(sequenceMask, from + count - 1);
+            long[] ids = new long[(int) (to - from + 1)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = compose(timestamp, from + i);
+            }
+            sequence = to;
+            lastTimestamp = timestamp;
+            stats.recordIssued(ids.length);
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public double sequenceUsage() {
+        // 不加锁读取，监控允许略旧
+        return (double) (sequence + 1) / (sequenceMask + 1);
+    }
+
+    @Override
+    public long borrowedMillis() {
+        return Math.max(0L, lastTimestamp - getTime());
+    }
+
+    /**
+     * 发布请求并等待结果，期间锁空闲即自己合并
+     *
+     * @param kind REQUEST 阻塞 / TRY_REQUEST 非阻塞
+     * @return ID || {@link IIdGenerator#UNAVAILABLE}（仅非阻塞）
+     * @throws TimeAccuracyException 回拨超出容忍范围，拒绝生成
+     */
+    private long request(long kind) {
+        int index = claim(kind);
+        if (index < 0) {
+            return direct(kind);
+        }
+        PaddedAtomicLong slot = slots[index];
+        int spins = 0;
+        long result;
+        while ((result = slot.get()) == kind) {
+            if (!lock.isLocked() && lock.tryLock()) {
+                try {
+                    combine();
+                } finally {
+                    lock.unlock();
+                }
+            } else if (++spins < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else {
+                spins = 0;
+                Thread.yield();
+            }
+        }
+        slot.set(EMPTY);
+        if (result == REJECTED) {
+            throw new TimeAccuracyException("时钟回拨，拒绝生成 ID");
+        }
+        return result;
+    }
+
+    /**
+     * 占用一个空槽位并发布请求，从本线程上次使用的槽位开始查找
+     *
+     * @param kind 请求类型
+     * @return 槽位下标 || -1: 槽位已满
+     */
+    private int claim(long kind) {
+        int[] hint = SLOT_HINT.get();
+        for (int i = 0; i < SLOTS; i++) {
+            int index = (hint[0] + i) & (SLOTS - 1);
+            PaddedAtomicLong slot = slots[index];
+            if (slot.get() == EMPTY && slot.compareAndSet(EMPTY, kind)) {
+                hint[0] = index;
+                if (index > highestSlot.get()) {
+                    highestSlot.accumulateAndGet(index, Math::max);
+                }
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 合并者：遍历槽位，为已发布的请求逐个生成 ID 并写回，须持锁调用
+     */
+    private void combine() {
+        int issued = 0;
+        for (int pass = 0; pass < COMBINE_PASSES; pass++) {
+            int served = 0;
+            int highest = highestSlot.get();
+            for (int i = 0; i <= highest; i++) {
+                PaddedAtomicLong slot = slots[i];
+                long kind = slot.get();
+                if (kind != REQUEST && kind != TRY_REQUEST) {
+                    continue;
+                }
+                long id;
+                try {
+                    id = next(kind == REQUEST);
+                } catch (TimeAccuracyException e) {
+                    id = REJECTED;
+                }
+                slot.set(id);
+                served++;
+                if (id >= 0) {
+                    issued++;
+                }
+            }
+            if (served == 0) {
+                break;
+            }
+        }
+        if (issued > 0) {
+            stats.recordIssued(issued);
+        }
+    }
+
+    /**
+     * 槽位已满时直接加锁生成
+     *
+     * @param kind 请求类型
+     * @return ID || {@link IIdGenerator#UNAVAILABLE}（仅非阻塞）
+     */
+    private long direct(long kind) {
+        lock.lock();
+        try {
+            long id = next(kind == REQUEST);
+            if (id >= 0) {
+                stats.recordIssued(1);
+            }
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 推进时间戳与序列号，须持锁调用
+     *
+     * @param blocking 序列号耗尽或可容忍的回拨时是否等待
+     * @return ID || {@link IIdGenerator#UNAVAILABLE}（仅非阻塞）
+     * @throws TimeAccuracyException 回拨超出容忍范围，拒绝生成
+     */
+    private long next(boolean blocking) {
+        long timestamp = blocking ? currentTimestamp(lastTimestamp) : tryCurrentTimestamp(lastTimestamp);
+        if (timestamp == UNAVAILABLE) {
+            return UNAVAILABLE;
+        }
+        if (timestamp == lastTimestamp) {
+            if (sequence == sequenceMask) {
+                timestamp = blocking ? nextMillis(lastTimestamp) : tryNextMillis(lastTimestamp);
+                if (timestamp == UNAVAILABLE) {
+                    return UNAVAILABLE;
+                }
+                sequence = 0;
+            } else {
+                sequence++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return compose(timestamp, sequence);
+    }
+}
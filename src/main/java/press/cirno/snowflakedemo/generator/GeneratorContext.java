@@ -0,0 +1,34 @@
+package press.cirno.snowflakedemo.generator;
+
+import lombok.Data;
+
+/**
+ * 生成器参数<br >
+ * 由 WorkerService 在初始化时组装
+ */
+@Data
+public class GeneratorContext {
+    private long workerId;
+    private long datacenterId = 0L;
+    private long startTime;
+    private BitLayout layout = BitLayout.DEFAULT;
+
+    // 回拨解决策略：reject/wait/auto
+    private String clockDriftStrategy = "auto";
+
+    // wait 模式最长等待时间
+    private long waitTime = 30L;
+
+    // 时间戳下限，只发出时间戳大于该值的 ID，0 为无下限；由重启前的检查点得出
+    private long timestampFloor = 0L;
+
+    // 序列号耗尽时逻辑时间戳最多领先系统时钟的毫秒数，0 为不借用
+    private long borrowLimit = 0L;
+
+    // 运行统计，同一条带内的各层生成器共用
+    private GeneratorStats stats = new GeneratorStats();
+
+    // 时间源与等待下一毫秒的方式，测试中可替换
+    private ITimeSource timeSource = SystemTimeSource.INSTANCE;
+    private IWaitStrategy waitStrategy = IWaitStrategy.SPIN;
+}
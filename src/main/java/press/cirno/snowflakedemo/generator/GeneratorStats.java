@@ -0,0 +1,76 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 生成器运行统计<br >
+ * 热路径只做 LongAdder 累加，多线程累加分散到不同单元，不引入新的竞争点；读数只增不减，供心跳与指标共用
+ */
+public class GeneratorStats {
+    // 已生成 ID 数
+    private final LongAdder issued = new LongAdder();
+    // 序列号耗尽、等待下一毫秒的次数
+    private final LongAdder exhaustionWaits = new LongAdder();
+    // 序列号耗尽时借用未来毫秒的次数
+    private final LongAdder borrows = new LongAdder();
+    // 时钟回拨后等待追平的次数
+    private final LongAdder clockDriftWaits = new LongAdder();
+    // 时钟回拨超出容忍范围、拒绝生成的次数
+    private final LongAdder clockDriftRejects = new LongAdder();
+    // 等待下一毫秒的次数与总耗时，耗尽与回拨两种等待都计入
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public void recordIssued(long count) {
+        issued.add(count);
+    }
+
+    public void recordExhaustionWait() {
+        exhaustionWaits.increment();
+    }
+
+    public void recordBorrow() {
+        borrows.increment();
+    }
+
+    public void recordClockDriftWait() {
+        clockDriftWaits.increment();
+    }
+
+    public void recordClockDriftReject() {
+        clockDriftRejects.increment();
+    }
+
+    public void recordWait(long nanos) {
+        waits.increment();
+        waitNanos.add(nanos);
+    }
+
+    public long getIssued() {
+        return issued.sum();
+    }
+
+    public long getExhaustionWaits() {
+        return exhaustionWaits.sum();
+    }
+
+    public long getBorrows() {
+        return borrows.sum();
+    }
+
+    public long getClockDriftWaits() {
+        return clockDriftWaits.sum();
+    }
+
+    public long getClockDriftRejects() {
+        return clockDriftRejects.sum();
+    }
+
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+}
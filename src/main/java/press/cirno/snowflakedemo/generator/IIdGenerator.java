@@ -0,0 +1,77 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.Arrays;
+
+/**
+ * ID 生成器<br >
+ * 实现需保证线程安全
+ */
+public interface IIdGenerator extends AutoCloseable {
+    // 非阻塞生成时暂无可用序列号的返回值，合法 ID 恒为非负
+    long UNAVAILABLE = -1L;
+
+    long nextId();
+
+    /**
+     * 非阻塞生成 ID：当前毫秒序列号耗尽或处于可容忍的回拨中时不等待时钟，直接返回<br >
+     * 默认退回阻塞的 {@link #nextId()}
+     *
+     * @return ID || {@link #UNAVAILABLE}: 稍后（下一毫秒）重试
+     */
+    default long tryNextId() {
+        return nextId();
+    }
+
+    /**
+     * 批量生成 ID，不足时跨毫秒继续生成
+     *
+     * @param count 数量
+     * @return 按生成顺序排列的 ID
+     */
+    long[] nextIds(int count);
+
+    /**
+     * 非阻塞批量生成：只取当前毫秒（或可借用的下一毫秒）剩余的序列号，不足时返回已取得的部分，不等待时钟<br >
+     * 默认逐个调用 {@link #tryNextId()}
+     *
+     * @param count 最大数量
+     * @return 按生成顺序排列的 ID，长度不超过 count || 空数组: 稍后（下一毫秒）重试
+     */
+    default long[] tryNextIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long id = tryNextId();
+            if (id == UNAVAILABLE) {
+                break;
+            }
+            ids[filled++] = id;
+        }
+        return filled == count ? ids : Arrays.copyOf(ids, filled);
+    }
+
+    /**
+     * 最近一个有 ID 生成的毫秒内的序列号使用率，供监控读取，允许读到略旧的值
+     *
+     * @return 0 ~ 1
+     */
+    default double sequenceUsage() {
+        return 0D;
+    }
+
+    /**
+     * 逻辑时间戳领先系统时钟的毫秒数，未借用时为 0
+     *
+     * @return 领先毫秒数
+     */
+    default long borrowedMillis() {
+        return 0L;
+    }
+
+    /**
+     * 释放生成器持有的后台资源
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,33 @@
+package press.cirno.snowflakedemo.generator;
+
+/**
+ * 生成器时间源<br >
+ * 测试中可替换为可控时钟
+ */
+public interface ITimeSource extends AutoCloseable {
+
+    /**
+     * @return 当前毫秒时间戳
+     */
+    long currentTimeMillis();
+
+    /**
+     * 释放时间源持有的后台资源
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * 按配置创建时间源：system（默认）/ticking
+     *
+     * @param name 时间源名称
+     * @return 时间源
+     */
+    static ITimeSource of(String name) {
+        if (name.equalsIgnoreCase("ticking")) {
+            return new TickingTimeSource();
+        }
+        return SystemTimeSource.INSTANCE;
+    }
+}
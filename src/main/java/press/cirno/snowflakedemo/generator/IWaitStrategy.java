@@ -0,0 +1,43 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 等待下一毫秒时每轮轮询之间的让步方式
+ */
+public interface IWaitStrategy {
+
+    /**
+     * 两次读取时间之间调用一次
+     */
+    void idle();
+
+    /**
+     * 自旋，提示 CPU 降低自旋功耗，延迟最低
+     */
+    IWaitStrategy SPIN = Thread::onSpinWait;
+
+    /**
+     * 让出 CPU 给同核其他线程
+     */
+    IWaitStrategy YIELD = Thread::yield;
+
+    /**
+     * 挂起约 50 微秒，基本不占 CPU，唤醒延迟取决于系统定时器精度
+     */
+    IWaitStrategy PARK = () -> LockSupport.parkNanos(50_000L);
+
+    /**
+     * 按配置选择等待策略：spin（默认）/yield/park
+     *
+     * @param name 策略名称
+     * @return 等待策略
+     */
+    static IWaitStrategy of(String name) {
+        return switch (name.toLowerCase()) {
+            case "yield" -> YIELD;
+            case "park" -> PARK;
+            default -> SPIN;
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 互斥锁生成器<br >
+ * 所有请求线程在同一把 {@link ReentrantLock} 上排队；
+ * 不使用 synchronized，等待下一毫秒时挂起的虚拟线程不会钉住载体线程
+ */
+public class LockIdGenerator extends AbstractIdGenerator {
+    private final ReentrantLock lock = new ReentrantLock();
+    private long lastTimestamp;
+    private long sequence = 0;
+
+    public LockIdGenerator(GeneratorContext context) {
+        super(context);
+        this.lastTimestamp = initialTimestamp();
+        this.sequence = initialSequence(lastTimestamp);
+    }
+
+    @Override
+    public long nextId() {
+        lock.lock();
+        try {
+            long timestamp = currentTimestamp(lastTimestamp);
+
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & sequenceMask;
+                if (sequence == 0) {
+                    timestamp = nextMillis(lastTimestamp);
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            stats.recordIssued(1);
+            return compose(timestamp, sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long tryNextId() {
+        lock.lock();
+        try {
+            long timestamp = tryCurrentTimestamp(lastTimestamp);
+            if (timestamp == UNAVAILABLE) {
+                return UNAVAILABLE;
+            }
+            if (timestamp == lastTimestamp) {
+                if (sequence == sequenceMask) {
+                    timestamp = tryNextMillis(lastTimestamp);
+                    if (timestamp == UNAVAILABLE) {
+                        return UNAVAILABLE;
+                    }
+                    sequence = 0;
+                } else {
+                    sequence++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            stats.recordIssued(1);
+            return compose(timestamp, sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在一次加锁内预留整段序列号，当前毫秒剩余不足时等待下一毫秒继续
+     */
+    @Override
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        lock.lock();
+        try {
+            while (filled < count) {
+                long timestamp = currentTimestamp(lastTimestamp);
+                long from = 0;
+                if (timestamp == lastTimestamp) {
+                    if (sequence == sequenceMask) {
+                        timestamp = nextMillis(lastTimestamp);
+                    } else {
+                        from = sequence + 1;
+                    }
+                }
+                long to = Math.min(sequenceMask, from + (count - filled) - 1);
+                for (long seq = from; seq <= to; seq++) {
+                    ids[filled++] = compose(timestamp, seq);
+                }
+                sequence = to;
+                lastTimestamp = timestamp;
+            }
+            stats.recordIssued(count);
+        } finally {
+            lock.unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * 在一次加锁内预留当前毫秒剩余的序列号，不等待下一毫秒
+     */
+    @Override
+    public long[] tryNextIds(int count) {
+        if (count < 1) {
+            return NO_IDS;
+        }
+        lock.lock();
+        try {
+            long timestamp = tryCurrentTimestamp(lastTimestamp);
+            if (timestamp == UNAVAILABLE) {
+                return NO_IDS;
+            }
+            long from = 0;
+            if (timestamp == lastTimestamp) {
+                if (sequence == sequenceMask) {
+                    timestamp = tryNextMillis(lastTimestamp);
+                    if (timestamp == UNAVAILABLE) {
+                        return NO_IDS;
+                    }
+                } else {
+                    from = sequence + 1;
+                }
+            }
+            long to = Math.min(sequenceMask, from + count - 1);
+            long[] ids = new long[(int) (to - from + 1)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = compose(timestamp, from + i);
+            }
+            sequence = to;
+            lastTimestamp = timestamp;
+            stats.recordIssued(ids.length);
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public double sequenceUsage() {
+        // 不加锁读取，监控允许略旧
+        return (double) (sequence + 1) / (sequenceMask + 1);
+    }
+
+    @Override
+    public long borrowedMillis() {
+        return Math.max(0L, lastTimestamp - getTime());
+    }
+}
@@ -0,0 +1,24 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 独占缓存行的 AtomicLong，避免相邻热点字段伪共享
+ */
+public class PaddedAtomicLong extends AtomicLong {
+    // 补齐 64 字节缓存行
+    public volatile long p1, p2, p3, p4, p5, p6 = 7L;
+
+    public PaddedAtomicLong(long initialValue) {
+        super(initialValue);
+    }
+
+    /**
+     * 防止填充字段被优化掉
+     *
+     * @return 填充字段之和
+     */
+    public long sumPaddingToPreventOptimisation() {
+        return p1 + p2 + p3 + p4 + p5 + p6;
+    }
+}
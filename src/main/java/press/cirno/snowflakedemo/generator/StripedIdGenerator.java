@@ -0,0 +1,47 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 条带生成器<br >
+ * 每个条带持有独立的 Worker ID 与生成状态，线程首次调用时轮转绑定一个条带，此后固定使用，条带之间互不竞争
+ */
+public class StripedIdGenerator implements IIdGenerator {
+    private final IIdGenerator[] stripes;
+    private final AtomicInteger assigner = new AtomicInteger(0);
+    private final ThreadLocal<IIdGenerator> bound;
+
+    public StripedIdGenerator(IIdGenerator[] stripes) {
+        this.stripes = stripes;
+        this.bound = ThreadLocal.withInitial(
+                () -> this.stripes[Math.floorMod(assigner.getAndIncrement(), this.stripes.length)]
+        );
+    }
+
+    @Override
+    public long nextId() {
+        return bound.get().nextId();
+    }
+
+    @Override
+    public long tryNextId() {
+        return bound.get().tryNextId();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        return bound.get().nextIds(count);
+    }
+
+    @Override
+    public long[] tryNextIds(int count) {
+        return bound.get().tryNextIds(count);
+    }
+
+    @Override
+    public void close() {
+        for (IIdGenerator stripe : stripes) {
+            stripe.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package press.cirno.snowflakedemo.generator;
+
+/**
+ * 系统时钟，每次读取调用 System.currentTimeMillis()
+ */
+public final class SystemTimeSource implements ITimeSource {
+    public static final SystemTimeSource INSTANCE = new SystemTimeSource();
+
+    private SystemTimeSource() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
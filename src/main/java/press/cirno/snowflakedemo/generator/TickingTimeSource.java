@@ -0,0 +1,59 @@
+package press.cirno.snowflakedemo.generator;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 后台线程推进的粗粒度时钟<br >
+ * 读取只是一次 volatile 读；时间由 System.nanoTime() 相对锚点推算，单调不减：
+ * 墙上时钟超前时重新锚定追上，墙上时钟回拨时继续按 nanoTime 前进，因此回拨策略不会被触发<br >
+ * 读数最多落后约一个推进间隔
+ */
+public class TickingTimeSource implements ITimeSource {
+    // 推进间隔
+    private static final long TICK_NANOS = 250_000L;
+
+    private volatile long now;
+    private volatile boolean running = true;
+    private final Thread ticker;
+
+    // 仅推进线程读写
+    private long anchorMillis;
+    private long anchorNanos;
+
+    public TickingTimeSource() {
+        this.anchorMillis = System.currentTimeMillis();
+        this.anchorNanos = System.nanoTime();
+        this.now = anchorMillis;
+        this.ticker = new Thread(this::tick, "id-clock-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    private void tick() {
+        while (running) {
+            long nanos = System.nanoTime();
+            long monotonic = anchorMillis + (nanos - anchorNanos) / 1_000_000L;
+            long wall = System.currentTimeMillis();
+            if (wall > monotonic) {
+                anchorMillis = wall;
+                anchorNanos = nanos;
+                monotonic = wall;
+            }
+            if (monotonic > now) {
+                now = monotonic;
+            }
+            LockSupport.parkNanos(TICK_NANOS);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+}
@@ -0,0 +1,116 @@
+package press.cirno.snowflakedemo.generator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongSupplier;
+
+/**
+ * 已发出时间戳检查点<br >
+ * 定时把不小于已发出最大时间戳的值写入内存映射文件，生成 ID 的路径不读写文件；
+ * 重启后以保存值加上写入间隔的余量作为下限，生成器只发出时间戳大于下限的 ID<br >
+ * 文件布局：两个槽位，各为 8 字节时间戳 + 8 字节校验（时间戳与魔数异或）；每次保存只写较旧的槽位并只刷该槽位，
+ * 最近一次有效的保存值所在槽位不会被改动，写入或刷盘中途崩溃时仍可读出<br >
+ * 打开时对文件加排他锁，关闭时释放；两个进程共用同一文件会互相覆盖保存值，后打开的一方直接失败
+ */
+@Slf4j
+public class TimestampCheckpoint implements AutoCloseable {
+    private static final long MAGIC = 0x5346_434B_5054_0001L;
+    private static final int SLOT_SIZE = 16;
+    private static final int SLOTS = 2;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final LongSupplier highestTimestamp;
+    // 最近一次有效的保存值与下次写入的槽位，均在 save 的同步块内修改
+    private long saved;
+    private int nextSlot;
+
+    /**
+     * @param path             检查点文件，不存在时创建
+     * @param highestTimestamp 不小于已发出最大时间戳的值
+     * @throws IOException           文件无法打开或映射
+     * @throws IllegalStateException 文件已被其他进程（或本进程的其他检查点）占用
+     */
+    public TimestampCheckpoint(Path path, LongSupplier highestTimestamp) throws IOException {
+        this.path = path;
+        this.highestTimestamp = highestTimestamp;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException("时间戳检查点文件已被占用: " + path.toAbsolutePath());
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SLOT_SIZE * SLOTS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long timestamp = buffer.getLong(slot * SLOT_SIZE);
+            long check = buffer.getLong(slot * SLOT_SIZE + 8);
+            if ((timestamp ^ MAGIC) == check) {
+                if (timestamp > saved) {
+                    saved = timestamp;
+                    // 下次写入另一个槽位
+                    nextSlot = (slot + 1) % SLOTS;
+                }
+            } else if (timestamp != 0L || check != 0L) {
+                log.warn("时间戳检查点槽位 {} 校验失败，忽略: {}", slot, path);
+            }
+        }
+    }
+
+    /**
+     * 读取最近一次保存的时间戳
+     *
+     * @return 时间戳 || 0: 无检查点或校验失败
+     */
+    public synchronized long load() {
+        return saved;
+    }
+
+    /**
+     * 写入当前已发出的最大时间戳并刷盘，只会增大<br >
+     * 由定时任务调用，每次一次刷盘系统调用，与生成 ID 的次数无关
+     */
+    public synchronized void save() {
+        long timestamp = highestTimestamp.getAsLong();
+        if (timestamp <= saved) {
+            return;
+        }
+        int offset = nextSlot * SLOT_SIZE;
+        buffer.putLong(offset, timestamp);
+        buffer.putLong(offset + 8, timestamp ^ MAGIC);
+        buffer.force(offset, SLOT_SIZE);
+        saved = timestamp;
+        nextSlot = (nextSlot + 1) % SLOTS;
+    }
+
+    /**
+     * 最后写入一次并关闭文件，同时释放文件锁
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            save();
+            channel.close();
+        } catch (IOException e) {
+            log.error("关闭时间戳检查点失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package press.cirno.snowflakedemo.master;
+
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 心跳截止时间的哈希时间轮<br >
+ * 每个 Worker 在截止时间所在的槽位登记一次；心跳只更新 Worker 的心跳时间，不移动登记（惰性重排）。
+ * 槽位到期时逐个复查：截止时间已过则作为过期候选返回，否则按新的截止时间重新登记。
+ * 每个 Worker 每个超时周期最多被复查一次，开销与集群规模无关<br >
+ * 已注销的 Worker 不必取消登记，到期后由注册表忽略；返回后才收到心跳、未被移除的 Worker 须重新登记
+ */
+public class HeartbeatWheel {
+    private final long tickMillis;
+    private final long timeoutMillis;
+    private final int mask;
+    private final ArrayDeque<WorkerPO>[] buckets;
+    // 登记与推进互斥：登记只在注册、启动加载时发生，推进由巡检线程每个刻度执行一次，心跳不加锁
+    private final ReentrantLock lock = new ReentrantLock();
+    // 已推进到的刻度（含）
+    private long currentTick;
+
+    /**
+     * @param tickMillis    刻度（毫秒），过期判定的精度
+     * @param wheelSize     槽位数，取不小于该值的 2 的幂；截止时间超出一圈的登记到期后重新登记
+     * @param timeoutMillis 心跳超时时间
+     * @param now           当前时间
+     */
+    @SuppressWarnings("unchecked")
+    public HeartbeatWheel(long tickMillis, int wheelSize, long timeoutMillis, long now) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * 按当前心跳时间登记 Worker 的截止时间，每个 Worker 只应登记一次
+     *
+     * @param workerPO Worker
+     */
+    public void schedule(WorkerPO workerPO) {
+        lock.lock();
+        try {
+            add(workerPO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 推进到当前时间，复查经过的槽位
+     *
+     * @param now 当前时间
+     * @return 截止时间已过的 Worker，可能包含已注销的 Worker
+     */
+    public List<WorkerPO> advance(long now) {
+        List<WorkerPO> due = new ArrayList<>();
+        long target = now / tickMillis;
+        lock.lock();
+        try {
+            while (currentTick < target) {
+                currentTick++;
+                ArrayDeque<WorkerPO> bucket = buckets[(int) (currentTick & mask)];
+                // 只复查本槽位已有的登记；截止时间超出一圈的 Worker 会重新登记回本槽位，一圈后再复查
+                for (int n = bucket.size(); n > 0; n--) {
+                    WorkerPO workerPO = bucket.poll();
+                    if (deadline(workerPO) < now) {
+                        due.add(workerPO);
+                    } else {
+                        add(workerPO);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return due;
+    }
+
+    /**
+     * 登记到截止时间所在刻度的槽位，已经过的刻度登记到下一刻度，须持锁调用
+     *
+     * @param workerPO Worker
+     */
+    private void add(WorkerPO workerPO) {
+        long tick = Math.max(currentTick + 1, Math.floorDiv(deadline(workerPO) + tickMillis - 1, tickMillis));
+        // 超出一圈的截止时间先登记到一圈末尾，到期后按实际截止时间重新登记
+        tick = Math.min(tick, currentTick + mask + 1);
+        buckets[(int) (tick & mask)].add(workerPO);
+    }
+
+    private long deadline(WorkerPO workerPO) {
+        return workerPO.getLastHeartbeat() + timeoutMillis;
+    }
+}
@@ -0,0 +1,62 @@
+package press.cirno.snowflakedemo.master;
+
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Worker 选择策略<br >
+ * 在路由快照上选择一个心跳未过期的 Worker，实现需无锁、线程安全
+ */
+public interface IWorkerSelector {
+
+    /**
+     * @param snapshot 路由快照，非空
+     * @param deadline 心跳截止时间，早于该时间的 Worker 不可选
+     * @return Worker || null: 无存活 Worker
+     */
+    WorkerPO select(List<WorkerPO> snapshot, long deadline);
+
+    /**
+     * 随机取一个存活 Worker：先随机探测快照大小次，均未命中时从随机位置线性扫描一遍，
+     * 快照中多数 Worker 已过期时也能找到仅剩的存活 Worker
+     *
+     * @param snapshot 路由快照，非空
+     * @param deadline 心跳截止时间
+     * @param random   随机数源
+     * @return Worker || null: 无存活 Worker
+     */
+    static WorkerPO pickAlive(List<WorkerPO> snapshot, long deadline, ThreadLocalRandom random) {
+        int size = snapshot.size();
+        for (int i = 0; i < size; i++) {
+            WorkerPO workerPO = snapshot.get(random.nextInt(size));
+            if (workerPO.getLastHeartbeat() >= deadline) {
+                return workerPO;
+            }
+        }
+        int offset = random.nextInt(size);
+        for (int i = 0; i < size; i++) {
+            WorkerPO workerPO = snapshot.get((offset + i) % size);
+            if (workerPO.getLastHeartbeat() >= deadline) {
+                return workerPO;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按配置创建选择策略：random（默认）/weighted/p2c/least-loaded，未知策略按 random 处理
+     *
+     * @param strategy 策略名
+     * @return 选择策略
+     */
+    static IWorkerSelector of(String strategy) {
+        return switch (strategy.toLowerCase()) {
+            case "weighted" -> new WeightedWorkerSelector();
+            case "p2c" -> new PowerOfTwoWorkerSelector();
+            case "least-loaded" -> new LeastLoadedWorkerSelector();
+            default -> new RandomWorkerSelector();
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package press.cirno.snowflakedemo.master;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Master 代理模式下的本地 ID 池<br >
+ * 按批存放从各 Worker 拉取的 ID，可按 Worker 整批作废<br >
+ * 每次作废递增该 Worker 的作废轮次；拉取前记下轮次，放入时轮次已变则拒绝，拉取期间被作废的 Worker 的 ID 不会进入池
+ */
+public class IdPool {
+    private final ConcurrentLinkedQueue<IdBatch> batches = new ConcurrentLinkedQueue<>();
+    private final AtomicLong available = new AtomicLong(0L);
+    // Worker ID -> 作废轮次，未作废过的不在表中
+    private final ConcurrentHashMap<Integer, Long> epochs = new ConcurrentHashMap<>();
+
+    /**
+     * 当前作废轮次，拉取 ID 前读取，放入时传回
+     *
+     * @param workerId Worker ID
+     * @return 作废轮次
+     */
+    public long epoch(int workerId) {
+        return epochs.getOrDefault(workerId, 0L);
+    }
+
+    /**
+     * 放入一批 ID，拉取期间该 Worker 被作废过则拒绝
+     *
+     * @param workerId 来源 Worker
+     * @param epoch    拉取前读取的作废轮次
+     * @param ids      ID
+     * @return 是否放入
+     */
+    public boolean offer(int workerId, long epoch, long[] ids) {
+        if (ids.length == 0 || epoch(workerId) != epoch) {
+            return false;
+        }
+        IdBatch batch = new IdBatch(workerId, ids);
+        available.addAndGet(ids.length);
+        batches.offer(batch);
+        // 作废先递增轮次再遍历：此处仍读到旧轮次，说明作废的遍历一定能看到本批次；否则由本方作废
+        if (epoch(workerId) != epoch) {
+            available.addAndGet(-drop(batch));
+            batches.remove(batch);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 取出一个 ID
+     *
+     * @return ID || -1: 池为空
+     */
+    public long poll() {
+        IdBatch batch;
+        while ((batch = batches.peek()) != null) {
+            if (!batch.revoked) {
+                int index = batch.cursor.getAndIncrement();
+                if (index < batch.ids.length) {
+                    available.decrementAndGet();
+                    // 作废与取出并发时，以作废为准
+                    if (!batch.revoked) {
+                        return batch.ids[index];
+                    }
+                    continue;
+                }
+            }
+            batches.remove(batch);
+        }
+        return -1L;
+    }
+
+    /**
+     * 作废指定 Worker 的全部批次
+     *
+     * @param workerId Worker ID
+     * @return 丢弃的 ID 数量
+     */
+    public long revoke(int workerId) {
+        epochs.merge(workerId, 1L, Long::sum);
+        long dropped = 0L;
+        Iterator<IdBatch> iterator = batches.iterator();
+        while (iterator.hasNext()) {
+            IdBatch batch = iterator.next();
+            if (batch.workerId == workerId && !batch.revoked) {
+                dropped += drop(batch);
+                iterator.remove();
+            }
+        }
+        available.addAndGet(-dropped);
+        return dropped;
+    }
+
+    /**
+     * 作废一个批次，与放入方并发作废同一批次时只有一方计入丢弃数量
+     *
+     * @param batch 批次
+     * @return 丢弃的 ID 数量
+     */
+    private static long drop(IdBatch batch) {
+        batch.revoked = true;
+        // 推进游标，剩余部分不再被取出
+        int consumed = Math.min(batch.cursor.getAndSet(batch.ids.length), batch.ids.length);
+        return batch.ids.length - consumed;
+    }
+
+    /**
+     * @return 剩余 ID 数量（近似值）
+     */
+    public long available() {
+        return available.get();
+    }
+
+    private static class IdBatch {
+        private final int workerId;
+        private final long[] ids;
+        private final AtomicInteger cursor = new AtomicInteger(0);
+        private volatile boolean revoked = false;
+
+        private IdBatch(int workerId, long[] ids) {
+            this.workerId = workerId;
+            this.ids = ids;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package press.cirno.snowflakedemo.master;
+
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 选择负载分数最低的存活 Worker<br >
+ * 从随机位置开始扫描，分数相同时请求分散到不同 Worker
+ */
+public class LeastLoadedWorkerSelector implements IWorkerSelector {
+
+    @Override
+    public WorkerPO select(List<WorkerPO> snapshot, long deadline) {
+        int size = snapshot.size();
+        int offset = ThreadLocalRandom.current().nextInt(size);
+        WorkerPO best = null;
+        for (int i = 0; i < size; i++) {
+            WorkerPO workerPO = snapshot.get((offset + i) % size);
+            if (workerPO.getLastHeartbeat() >= deadline
+                    && (best == null || workerPO.getLoad() < best.getLoad())) {
+                best = workerPO;
+            }
+        }
+        return best;
+    }
+}
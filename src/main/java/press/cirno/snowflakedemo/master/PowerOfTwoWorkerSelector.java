@@ -0,0 +1,27 @@
+package press.cirno.snowflakedemo.master;
+
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 二选一（power of two choices）：随机取两个存活 Worker，选负载较低者<br >
+ * 开销与随机选择相当，负载分布接近最小负载选择，且不会所有请求同时涌向同一个 Worker
+ */
+public class PowerOfTwoWorkerSelector implements IWorkerSelector {
+
+    @Override
+    public WorkerPO select(List<WorkerPO> snapshot, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        WorkerPO first = IWorkerSelector.pickAlive(snapshot, deadline, random);
+        if (first == null || snapshot.size() == 1) {
+            return first;
+        }
+        WorkerPO second = IWorkerSelector.pickAlive(snapshot, deadline, random);
+        if (second == null) {
+            return first;
+        }
+        return second.getLoad() < first.getLoad() ? second : first;
+    }
+}
@@ -0,0 +1,17 @@
+package press.cirno.snowflakedemo.master;
+
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 均匀随机选择，不考虑负载
+ */
+public class RandomWorkerSelector implements IWorkerSelector {
+
+    @Override
+    public WorkerPO select(List<WorkerPO> snapshot, long deadline) {
+        return IWorkerSelector.pickAlive(snapshot, deadline, ThreadLocalRandom.current());
+    }
+}
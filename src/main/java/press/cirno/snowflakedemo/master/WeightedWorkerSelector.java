@@ -0,0 +1,45 @@
+package press.cirno.snowflakedemo.master;
+
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按负载加权随机选择，权重与负载分数成反比<br >
+ * 每次选择扫描两遍快照，适合 Worker 数量不大的场景
+ */
+public class WeightedWorkerSelector implements IWorkerSelector {
+    // 避免空闲 Worker 权重无穷大
+    private static final double SMOOTHING = 0.05D;
+
+    @Override
+    public WorkerPO select(List<WorkerPO> snapshot, long deadline) {
+        double total = 0D;
+        for (WorkerPO workerPO : snapshot) {
+            if (workerPO.getLastHeartbeat() >= deadline) {
+                total += weight(workerPO);
+            }
+        }
+        if (total <= 0D) {
+            return null;
+        }
+        double point = ThreadLocalRandom.current().nextDouble(total);
+        WorkerPO last = null;
+        for (WorkerPO workerPO : snapshot) {
+            if (workerPO.getLastHeartbeat() >= deadline) {
+                last = workerPO;
+                point -= weight(workerPO);
+                if (point < 0D) {
+                    return workerPO;
+                }
+            }
+        }
+        // 浮点误差兜底
+        return last;
+    }
+
+    private static double weight(WorkerPO workerPO) {
+        return 1D / (SMOOTHING + workerPO.getLoad());
+    }
+}
@@ -0,0 +1,167 @@
+package press.cirno.snowflakedemo.master;
+
+import java.util.ArrayDeque;
+
+/**
+ * Worker ID 分配器<br >
+ * 分层位图记录空闲 ID：底层每位对应一个 ID，上层每位表示下层对应的字中是否还有空闲位；
+ * 分配时逐层取最低置位，层数为 log64(容量)，默认布局下仅两层<br >
+ * 释放的 ID 先进入隔离队列，隔离期满才可再次分配，避免旧 Worker 尚未停止时新 Worker 拿到同一 ID<br >
+ * 隔离队列只在内存中，Master 重启后丢失，故启动时将数据库中不存在的 ID 一律视为自启动时刻起隔离<br >
+ * ID 0 保留不分配
+ */
+public class WorkerIdAllocator {
+    private final int maxId;
+    private final long quarantineMillis;
+    // levels[0] 为底层，最后一层只有一个字
+    private final long[][] levels;
+    // 隔离期相同，按释放顺序即到期顺序
+    private final ArrayDeque<Quarantined> quarantine = new ArrayDeque<>();
+    private int free;
+    // 启动隔离到期时间，此前不分配任何 ID
+    private long warmUntil = Long.MIN_VALUE;
+
+    /**
+     * @param maxId            最大可分配 ID
+     * @param quarantineMillis 释放后的隔离时间
+     */
+    public WorkerIdAllocator(int maxId, long quarantineMillis) {
+        this.maxId = maxId;
+        this.quarantineMillis = quarantineMillis;
+        int depth = 1;
+        for (long bits = maxId + 1L; bits > 64; bits = (bits + 63) >>> 6) {
+            depth++;
+        }
+        this.levels = new long[depth][];
+        long bits = maxId + 1L;
+        for (int level = 0; level < depth; level++) {
+            levels[level] = new long[(int) ((bits + 63) >>> 6)];
+            bits = levels[level].length;
+        }
+        for (int id = 1; id <= maxId; id++) {
+            setFree(id);
+        }
+        this.free = maxId;
+    }
+
+    /**
+     * 分配最小的空闲 ID
+     *
+     * @param now 当前时间
+     * @return ID || -1: 无空闲 ID 或处于启动隔离期
+     */
+    public synchronized int allocate(long now) {
+        releaseExpired(now);
+        if (now < warmUntil || levels[levels.length - 1][0] == 0L) {
+            return -1;
+        }
+        int index = 0;
+        for (int level = levels.length - 1; level >= 0; level--) {
+            index = (index << 6) | Long.numberOfTrailingZeros(levels[level][index]);
+        }
+        clearFree(index);
+        free--;
+        return index;
+    }
+
+    /**
+     * 标记 ID 已被占用，用于从数据库恢复
+     *
+     * @param id ID
+     * @return 是否标记成功 || false: 超出范围或已被占用
+     */
+    public synchronized boolean reserve(int id) {
+        if (id < 1 || id > maxId || (levels[0][id >>> 6] & (1L << id)) == 0L) {
+            return false;
+        }
+        clearFree(id);
+        free--;
+        return true;
+    }
+
+    /**
+     * 将未被占用的 ID 全部视为刚释放，用于 Master 启动时从数据库恢复之后<br >
+     * 重启前释放的 ID 可能仍在隔离期内，其所属的旧 Worker 也可能尚未停止
+     *
+     * @param now 当前时间
+     */
+    public synchronized void quarantineUnreserved(long now) {
+        warmUntil = now + quarantineMillis;
+    }
+
+    /**
+     * @param now 当前时间
+     * @return 是否处于启动隔离期
+     */
+    public synchronized boolean warming(long now) {
+        return now < warmUntil;
+    }
+
+    /**
+     * 释放 ID，隔离期满后可再次分配
+     *
+     * @param id  ID
+     * @param now 当前时间
+     */
+    public synchronized void release(int id, long now) {
+        if (id >= 1 && id <= maxId) {
+            quarantine.offer(new Quarantined(id, now + quarantineMillis));
+        }
+    }
+
+    /**
+     * 立即释放 ID，仅用于分配后未实际下发的 ID
+     *
+     * @param id ID
+     */
+    public synchronized void releaseNow(int id) {
+        if (id >= 1 && id <= maxId && (levels[0][id >>> 6] & (1L << id)) == 0L) {
+            setFree(id);
+            free++;
+        }
+    }
+
+    /**
+     * @return 当前可分配的 ID 数量，不含隔离中的 ID
+     */
+    public synchronized int available() {
+        return free;
+    }
+
+    private void releaseExpired(long now) {
+        Quarantined head;
+        while ((head = quarantine.peek()) != null && head.releaseAt <= now) {
+            quarantine.poll();
+            releaseNow(head.id);
+        }
+    }
+
+    private void setFree(int id) {
+        int index = id;
+        for (long[] words : levels) {
+            long word = words[index >>> 6];
+            words[index >>> 6] = word | (1L << index);
+            // 该字原本已有空闲位，上层无需变化
+            if (word != 0L) {
+                return;
+            }
+            index >>>= 6;
+        }
+    }
+
+    private void clearFree(int id) {
+        int index = id;
+        for (long[] words : levels) {
+            long word = words[index >>> 6] & ~(1L << index);
+            words[index >>> 6] = word;
+            // 该字仍有空闲位，上层无需变化
+            if (word != 0L) {
+                return;
+            }
+            index >>>= 6;
+        }
+    }
+
+    private record Quarantined(int id, long releaseAt) {
+    }
+}
@@ -0,0 +1,28 @@
+package press.cirno.snowflakedemo.master;
+
+import press.cirno.snowflakedemo.pojo.HeartbeatBody;
+
+/**
+ * Worker 负载分数计算<br >
+ * 分数 = 序列号利用率 + 耗尽等待占比 + 平均请求耗时（毫秒），越小越空闲；各项在满载时均约为 1
+ */
+public final class WorkerLoad {
+    private WorkerLoad() {
+    }
+
+    /**
+     * @param body             心跳信息
+     * @param intervalMillis   距上次心跳的间隔
+     * @param sequenceCapacity 单节点每毫秒可生成的 ID 数
+     * @return 负载分数
+     */
+    public static double score(HeartbeatBody body, long intervalMillis, long sequenceCapacity) {
+        long interval = Math.max(intervalMillis, 1L);
+        // 间隔内可生成的 ID 总量中已使用的比例
+        double utilization = (double) body.getIdsIssued() / ((double) interval * sequenceCapacity);
+        // 间隔内发生耗尽等待的毫秒占比
+        double exhaustion = (double) body.getExhaustionWaits() / interval;
+        double latency = body.getLatencyMicros() / 1000D;
+        return Math.min(utilization, 1D) + Math.min(exhaustion, 1D) + latency;
+    }
+}
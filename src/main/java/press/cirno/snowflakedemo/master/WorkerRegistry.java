@@ -0,0 +1,274 @@
+package press.cirno.snowflakedemo.master;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+import press.cirno.snowflakedemo.repositry.WorkerDAO;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Master 内存 Worker 注册表<br >
+ * 热路径（注册查重、心跳、注销）只读写内存，变更按 Worker 合并后定时批量写回数据库
+ */
+@Slf4j
+public class WorkerRegistry {
+    private final WorkerDAO workerDAO;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, WorkerPO> byId = new ConcurrentHashMap<>();
+    private final Map<String, WorkerPO> byIdentity = new ConcurrentHashMap<>();
+
+    // 待写回的变更，同一 Worker 多次变更只写一次；待删除记录附带识别，注册时据此找出冲突的记录
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, String> deleted = new ConcurrentHashMap<>();
+    // 正在注册的识别，同一识别的并发注册只放行一个
+    private final Set<String> registering = ConcurrentHashMap.newKeySet();
+    // 删除语句互斥：注册前的冲突删除须等进行中的写回提交，否则取不到已被取出的待删除记录而插入冲突
+    private final ReentrantLock deleteLock = new ReentrantLock();
+
+    public WorkerRegistry(WorkerDAO workerDAO, TransactionTemplate transactionTemplate) {
+        this.workerDAO = workerDAO;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 从数据库重建注册表
+     */
+    public void load() {
+        byId.clear();
+        byIdentity.clear();
+        dirty.clear();
+        deleted.clear();
+        for (WorkerPO workerPO : workerDAO.findAll()) {
+            byId.put(workerPO.getId(), workerPO);
+            byIdentity.put(identity(workerPO.getIp(), workerPO.getMac(), workerPO.getStripe()), workerPO);
+        }
+        log.info("从数据库加载 {} 个 Worker", byId.size());
+    }
+
+    public WorkerPO findById(int workerId) {
+        return byId.get(workerId);
+    }
+
+    public WorkerPO findByIdentity(String ip, String mac, int stripe) {
+        return byIdentity.get(identity(ip, mac, stripe));
+    }
+
+    /**
+     * 开始注册：占用识别，查重与分配 ID 在占用期间进行，须以 {@link #endRegistration} 释放
+     *
+     * @param ip     IP
+     * @param mac    Mac
+     * @param stripe 条带序号
+     * @return 是否占用成功 || false: 已注册或正在注册
+     */
+    public boolean beginRegistration(String ip, String mac, int stripe) {
+        String identity = identity(ip, mac, stripe);
+        if (!registering.add(identity)) {
+            return false;
+        }
+        if (byIdentity.containsKey(identity)) {
+            registering.remove(identity);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 结束注册，释放识别；注册成功时识别已在注册表内，之后的重复注册由查重拒绝
+     *
+     * @param ip     IP
+     * @param mac    Mac
+     * @param stripe 条带序号
+     */
+    public void endRegistration(String ip, String mac, int stripe) {
+        registering.remove(identity(ip, mac, stripe));
+    }
+
+    /**
+     * 加入已持久化（已分配 ID）的 Worker
+     *
+     * @param workerPO Worker
+     */
+    public void add(WorkerPO workerPO) {
+        byId.put(workerPO.getId(), workerPO);
+        byIdentity.put(identity(workerPO.getIp(), workerPO.getMac(), workerPO.getStripe()), workerPO);
+    }
+
+    /**
+     * 更新心跳时间，延迟写回
+     *
+     * @param workerId  Worker ID
+     * @param timestamp 心跳时间
+     * @return Worker || null: 未注册
+     */
+    public WorkerPO touch(int workerId, long timestamp) {
+        WorkerPO workerPO = byId.get(workerId);
+        if (workerPO != null) {
+            workerPO.setLastHeartbeat(timestamp);
+            dirty.add(workerId);
+        }
+        return workerPO;
+    }
+
+    /**
+     * 移除 Worker，延迟写回
+     *
+     * @param workerPO Worker
+     */
+    public void remove(WorkerPO workerPO) {
+        byIdentity.remove(identity(workerPO.getIp(), workerPO.getMac(), workerPO.getStripe()), workerPO);
+        if (byId.remove(workerPO.getId(), workerPO)) {
+            dirty.remove(workerPO.getId());
+            deleted.put(workerPO.getId(), identity(workerPO.getIp(), workerPO.getMac(), workerPO.getStripe()));
+        }
+    }
+
+    /**
+     * 从候选中移除仍在注册表内且心跳早于截止时间的 Worker，并以一条批量删除语句立即删除对应记录<br >
+     * 候选由 {@link HeartbeatWheel} 给出，不遍历整个注册表；删除失败时转为延迟写回
+     *
+     * @param candidates 候选 Worker，可包含已注销的 Worker
+     * @param deadline   心跳截止时间
+     * @return 被移除的 Worker
+     */
+    public List<WorkerPO> expire(Collection<WorkerPO> candidates, long deadline) {
+        List<WorkerPO> expired = new ArrayList<>();
+        Map<Integer, String> expiredIds = new HashMap<>();
+        for (WorkerPO workerPO : candidates) {
+            if (workerPO.getLastHeartbeat() < deadline
+                    && byId.remove(workerPO.getId(), workerPO)) {
+                byIdentity.remove(identity(workerPO.getIp(), workerPO.getMac(), workerPO.getStripe()), workerPO);
+                dirty.remove(workerPO.getId());
+                expired.add(workerPO);
+                expiredIds.put(workerPO.getId(), identity(workerPO.getIp(), workerPO.getMac(), workerPO.getStripe()));
+            }
+        }
+        if (expiredIds.isEmpty()) {
+            return expired;
+        }
+        deleteLock.lock();
+        try {
+            workerDAO.deleteAllByIdInBatch(expiredIds.keySet());
+        } catch (Exception e) {
+            log.error("批量删除过期 Worker 失败，转为延迟写回: {}", e.getMessage());
+            deleted.putAll(expiredIds);
+        } finally {
+            deleteLock.unlock();
+        }
+        return expired;
+    }
+
+    public Collection<WorkerPO> all() {
+        return byId.values();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * 批量写回：一次删除语句 + 一次按 ID 批量查询后的批量更新，同一事务内完成<br >
+     * 写回失败的变更保留到下次
+     */
+    public void flush() {
+        deleteLock.lock();
+        try {
+            doFlush();
+        } finally {
+            deleteLock.unlock();
+        }
+    }
+
+    private void doFlush() {
+        Map<Integer, String> deletedIds = drain(deleted);
+        List<Integer> dirtyIds = drain(dirty);
+        if (deletedIds.isEmpty() && dirtyIds.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!deletedIds.isEmpty()) {
+                    workerDAO.deleteAllByIdInBatch(deletedIds.keySet());
+                }
+                if (!dirtyIds.isEmpty()) {
+                    // 取得托管实体后修改，提交时由 Hibernate 批量更新
+                    for (WorkerPO managed : workerDAO.findAllById(dirtyIds)) {
+                        WorkerPO current = byId.get(managed.getId());
+                        if (current != null) {
+                            managed.setLastHeartbeat(current.getLastHeartbeat());
+                            managed.setExposedAddress(current.getExposedAddress());
+                        }
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("Worker 注册表写回失败，下次重试: {}", e.getMessage());
+            deleted.putAll(deletedIds);
+            for (Integer id : dirtyIds) {
+                if (byId.containsKey(id)) {
+                    dirty.add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * 立即删除与新记录同 ID 或同识别的待删除记录，避免插入时违反主键或唯一约束；其余变更仍等定时写回<br >
+     * 删除失败时保留待删除记录并抛出异常
+     *
+     * @param workerPO 待插入的 Worker
+     */
+    public void flushConflicting(WorkerPO workerPO) {
+        String identity = identity(workerPO.getIp(), workerPO.getMac(), workerPO.getStripe());
+        deleteLock.lock();
+        try {
+            Map<Integer, String> conflicting = new HashMap<>();
+            for (Map.Entry<Integer, String> entry : deleted.entrySet()) {
+                if ((entry.getKey().equals(workerPO.getId()) || entry.getValue().equals(identity))
+                        && deleted.remove(entry.getKey(), entry.getValue())) {
+                    conflicting.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (conflicting.isEmpty()) {
+                return;
+            }
+            try {
+                workerDAO.deleteAllByIdInBatch(conflicting.keySet());
+            } catch (RuntimeException e) {
+                deleted.putAll(conflicting);
+                throw e;
+            }
+        } finally {
+            deleteLock.unlock();
+        }
+    }
+
+    private static Map<Integer, String> drain(Map<Integer, String> map) {
+        Map<Integer, String> drained = new HashMap<>();
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            drained.put(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private static List<Integer> drain(Set<Integer> set) {
+        List<Integer> drained = new ArrayList<>();
+        Iterator<Integer> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private static String identity(String ip, String mac, int stripe) {
+        return ip + "|" + mac + "|" + stripe;
+    }
+}
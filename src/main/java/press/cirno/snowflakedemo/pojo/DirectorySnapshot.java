@@ -0,0 +1,26 @@
+package press.cirno.snowflakedemo.pojo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Worker 目录快照<br >
+ * 版本号仅在可路由的 Worker 地址集合变化时递增，客户端据此判断本地缓存是否过期
+ */
+@Data
+public class DirectorySnapshot {
+    private long version;
+
+    // 去重后的 Worker 地址
+    private List<String> workers;
+
+    public DirectorySnapshot(long version, List<String> workers) {
+        this.version = version;
+        this.workers = workers;
+    }
+
+    public DirectorySnapshot() {
+
+    }
+}
@@ -1,6 +1,5 @@
 package press.cirno.snowflakedemo.pojo;
 
-import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,10 +9,23 @@ import lombok.ToString;
 @Setter
 @ToString
 public class HeartbeatBody extends RegistryBody {
+    // 上限由位布局决定，在 MasterService 中校验
     @Min(1)
-    @Max(1023)
     private int workerId;
 
+    // 负载统计，均为距上次心跳的增量
+    // 生成的 ID 数
+    @Min(0)
+    private long idsIssued = 0L;
+
+    // 序列号耗尽等待次数
+    @Min(0)
+    private long exhaustionWaits = 0L;
+
+    // 平均请求耗时（微秒）
+    @Min(0)
+    private long latencyMicros = 0L;
+
     public HeartbeatBody(String ip, String mac, Long timestamp, String exposedAddress, int workerId) {
         super(ip, mac, timestamp, exposedAddress);
         this.workerId = workerId;
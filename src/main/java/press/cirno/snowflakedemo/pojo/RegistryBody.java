@@ -1,5 +1,6 @@
 package press.cirno.snowflakedemo.pojo;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import lombok.Getter;
@@ -30,6 +31,10 @@ public class RegistryBody {
     @Pattern(regexp = "^(http|https)://([\\w.-]+|\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(:[0-9]+)?(/.*)?$")
     private String exposedAddress;
 
+    // 同一进程申领多个 Worker ID 时的条带序号，IP + Mac + 条带识别一个 Worker ID
+    @Min(0)
+    private int stripe = 0;
+
     public RegistryBody(String ip, String mac, Long timestamp, String exposedAddress) {
         this.ip = ip;
         this.mac = mac;
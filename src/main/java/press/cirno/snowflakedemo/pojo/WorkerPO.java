@@ -4,30 +4,40 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "worker")
+@Table(name = "worker", uniqueConstraints = @UniqueConstraint(columnNames = {"ip", "mac", "stripe"}))
 @Data
 public class WorkerPO {
+    // 由 Master 的 Worker ID 分配器分配，释放后可复用
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
     private Integer id;
 
-    // ip mac 组合识别一个唯一 Worker
-    @Column(nullable = false, unique = true)
+    // ip mac 条带组合识别一个唯一 Worker
+    @Column(nullable = false)
     private String ip;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String mac;
 
+    // 同一进程申领多个 Worker ID 时的条带序号
+    @Column(nullable = false)
+    private Integer stripe = 0;
+
     // Worker 用于外部访问的地址
     @Column(name = "exposed_address", nullable = false)
     private String exposedAddress;
 
+    // 心跳线程写入，路由与巡检线程不加锁读取
     @Column(nullable = false)
-    private Long lastHeartbeat;
+    private volatile Long lastHeartbeat;
+
+    // 负载分数，越小越空闲；由心跳统计计算，仅存于内存
+    @Transient
+    private volatile double load = 0D;
 
-    public WorkerPO(String ip, String mac, Long lastHeartbeat, String exposedAddress) {
+    public WorkerPO(String ip, String mac, Integer stripe, Long lastHeartbeat, String exposedAddress) {
         this.ip = ip;
         this.mac = mac;
+        this.stripe = stripe;
         this.lastHeartbeat = lastHeartbeat;
         this.exposedAddress = exposedAddress;
     }
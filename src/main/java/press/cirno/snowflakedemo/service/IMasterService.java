@@ -1,8 +1,11 @@
 package press.cirno.snowflakedemo.service;
 
+import press.cirno.snowflakedemo.pojo.DirectorySnapshot;
 import press.cirno.snowflakedemo.pojo.HeartbeatBody;
 import press.cirno.snowflakedemo.pojo.RegistryBody;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 
 public interface IMasterService {
@@ -12,9 +15,21 @@ public interface IMasterService {
 
     String getWorker();
 
+    List<String> getWorkers();
+
+    DirectorySnapshot getDirectory();
+
+    CompletableFuture<DirectorySnapshot> watchDirectory(long version);
+
+    long nextId();
+
     void initWorkerList();
 
     ScheduledFuture<?> startCheckWorker();
 
+    ScheduledFuture<?> startFlushWorker();
+
+    void flushWorker();
+
     boolean unregister(RegistryBody body);
 }
@@ -5,6 +5,16 @@ import java.util.concurrent.ScheduledFuture;
 public interface IWorkerService {
     long nextId();
 
+    long[] nextIds(int count);
+
+    long nextId(String namespace);
+
+    long[] nextIds(String namespace, int count);
+
+    long tryNextId(String namespace);
+
+    long[] tryNextIds(String namespace, int count);
+
     void init();
 
     ScheduledFuture<?> startHeartbeat();
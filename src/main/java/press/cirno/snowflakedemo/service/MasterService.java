@@ -1,94 +1,240 @@
 package press.cirno.snowflakedemo.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+import press.cirno.snowflakedemo.config.AppConfig;
 import press.cirno.snowflakedemo.exception.TimeAccuracyException;
 import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.generator.BitLayout;
+import press.cirno.snowflakedemo.master.HeartbeatWheel;
+import press.cirno.snowflakedemo.master.IWorkerSelector;
+import press.cirno.snowflakedemo.master.IdPool;
+import press.cirno.snowflakedemo.master.WorkerIdAllocator;
+import press.cirno.snowflakedemo.master.WorkerLoad;
+import press.cirno.snowflakedemo.master.WorkerRegistry;
+import press.cirno.snowflakedemo.pojo.DirectorySnapshot;
 import press.cirno.snowflakedemo.pojo.HeartbeatBody;
 import press.cirno.snowflakedemo.pojo.RegistryBody;
 import press.cirno.snowflakedemo.pojo.WorkerPO;
 import press.cirno.snowflakedemo.repositry.WorkerDAO;
+import press.cirno.snowflakedemo.util.ThreadUtil;
 
-import java.util.ArrayList;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "sf.master.enabled", havingValue = "true")
 public class MasterService implements IMasterService {
 
-    private final List<WorkerPO> workerList;
+    // 心跳超时时间
+    private static final long HEARTBEAT_TIMEOUT = 10000L;
+    // 心跳时间轮刻度，过期 Worker 在截止时间后一个刻度内移除
+    private static final long HEARTBEAT_TICK = 100L;
+    // Worker 最大时钟回拨等待时间，与 Worker 端上限一致
+    private static final long MAX_CLOCK_DRIFT = 1000L;
+    // 分配器位图容量上限
+    private static final int MAX_ALLOCATABLE_ID = (1 << 24) - 1;
+    // 代理模式 ID 池为空时请求线程等待补充的最长时间
+    private static final long REFILL_WAIT = 1000L;
+
+    // 路由快照：不可变列表，旁路构建后整体替换，读取无锁
+    private volatile List<WorkerPO> routing = List.of();
+    // 发布方互斥，注册、心跳请求线程均可能发布，不用 synchronized 以免钉住虚拟线程的载体线程
+    private final ReentrantLock routingLock = new ReentrantLock();
+    // Worker 目录：随路由快照发布，地址集合不变时沿用旧版本；初始版本取启动时间，Master 重启后版本不会回退到客户端缓存的旧值
+    private volatile DirectorySnapshot directory = new DirectorySnapshot(System.currentTimeMillis(), List.of());
+    // 等待目录变更的长轮询请求，目录发布或请求超时后移除
+    private final Set<CompletableFuture<DirectorySnapshot>> directoryWatchers = ConcurrentHashMap.newKeySet();
+    private final WorkerRegistry workerRegistry;
     private final WorkerDAO workerDAO;
+    private final AppConfig appConfig;
     private final ScheduledExecutorService scheduledExecutorService;
+    // 时间轮推进独占一个线程，不与写回共用：写回一批脏记录耗时较长时不会推迟过期判定
+    private final ScheduledExecutorService wheelExecutorService;
+    // 可分配的最大 Worker ID，由位布局决定
+    private final long maxWorkerId;
+    // 单节点每毫秒可生成的 ID 数，用于计算负载分数
+    private final long sequenceCapacity;
+    private final IWorkerSelector workerSelector;
+    private final WorkerIdAllocator workerIdAllocator;
+    private final HeartbeatWheel heartbeatWheel;
+
+    // 指标
+    private final Timer heartbeatTimer;
+    private final Timer sweepTimer;
+    private final Counter routingSelected;
+    private final Counter routingNoWorker;
+
+    // 代理模式相关
+    private final IdPool idPool;
+    private final RestTemplate restTemplate;
+    private final ExecutorService refillExecutor;
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+    // 补充任务每放入一批即换新并完成旧的一个，结果为是否放入；补充任务结束时再完成一次，拉取失败时结果为 false
+    private final AtomicReference<CompletableFuture<Boolean>> batchArrived =
+            new AtomicReference<>(new CompletableFuture<>());
 
     @Autowired
-    public MasterService(WorkerDAO workerDAO) {
+    public MasterService(WorkerDAO workerDAO, AppConfig appConfig, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
         this.workerDAO = workerDAO;
-        this.scheduledExecutorService = new ScheduledThreadPoolExecutor(1);
-        this.workerList = new ArrayList<>(1023);
+        this.workerRegistry = new WorkerRegistry(workerDAO, new TransactionTemplate(transactionManager));
+        this.appConfig = appConfig;
+        // 写回与巡检访问数据库、补充 ID 池访问 Worker，均为阻塞调用，启用虚拟线程时在虚拟线程上执行
+        this.scheduledExecutorService = new ScheduledThreadPoolExecutor(1,
+                ThreadUtil.factory("master-scheduler", appConfig.isVirtualThreads()));
+        this.wheelExecutorService = new ScheduledThreadPoolExecutor(1,
+                ThreadUtil.factory("master-heartbeat-wheel", appConfig.isVirtualThreads()));
+        BitLayout layout = BitLayout.of(appConfig);
+        this.maxWorkerId = layout.getMaxWorkerId();
+        this.sequenceCapacity = layout.getSequenceMask() + 1;
+        this.workerSelector = IWorkerSelector.of(appConfig.getRoutingStrategy());
+        log.info("Worker 路由策略: {}", workerSelector.getClass().getSimpleName());
+        // 隔离期须长于被移除 Worker 发现心跳失败并停止的时间，再加上最大回拨，否则复用的 ID 可能与旧 ID 重复
+        long quarantine = appConfig.getIdQuarantine();
+        if (quarantine <= HEARTBEAT_TIMEOUT + MAX_CLOCK_DRIFT) {
+            log.warn("Worker ID 隔离时间过短，至少为 {} ms", HEARTBEAT_TIMEOUT + MAX_CLOCK_DRIFT + 1);
+            quarantine = HEARTBEAT_TIMEOUT + MAX_CLOCK_DRIFT + 1;
+        }
+        this.workerIdAllocator = new WorkerIdAllocator((int) Math.min(maxWorkerId, MAX_ALLOCATABLE_ID), quarantine);
+        // 512 个刻度为 51.2 秒一圈，覆盖心跳超时
+        this.heartbeatWheel = new HeartbeatWheel(HEARTBEAT_TICK, 512, HEARTBEAT_TIMEOUT, System.currentTimeMillis());
+        this.idPool = new IdPool();
+        // JDK HttpClient 默认复用 HTTP/1.1 长连接
+        this.restTemplate = new RestTemplate(new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build()
+        ));
+        this.refillExecutor = Executors.newSingleThreadExecutor(
+                ThreadUtil.factory("master-refill", appConfig.isVirtualThreads()));
+
+        this.heartbeatTimer = Timer.builder("snowflake.master.heartbeat")
+                .description("心跳处理耗时")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("snowflake.master.sweep")
+                .description("过期 Worker 巡检耗时")
+                .register(meterRegistry);
+        Gauge.builder("snowflake.master.workers", workerRegistry, WorkerRegistry::size)
+                .description("注册表中的 Worker 数")
+                .register(meterRegistry);
+        // Counter 内部为分段累加，/master/id 并发递增不会互相竞争
+        this.routingSelected = Counter.builder("snowflake.master.routing")
+                .description("Worker 选择次数")
+                .tags("strategy", appConfig.getRoutingStrategy(), "outcome", "selected")
+                .register(meterRegistry);
+        this.routingNoWorker = Counter.builder("snowflake.master.routing")
+                .description("Worker 选择次数")
+                .tags("strategy", appConfig.getRoutingStrategy(), "outcome", "no_worker")
+                .register(meterRegistry);
     }
 
 
     /**
-     * 注册 Worker 并返回分配的 Worker ID
+     * 注册 Worker 并返回分配的 Worker ID<br >
+     * 分配当前最小的空闲 Worker ID，已释放的 ID 在隔离期满后复用；
+     * Master 启动后的一个隔离期内不分配，重启前释放的 ID 可能仍被旧 Worker 使用
      *
      * @param body 注册信息
-     * @return Worker ID || -1: Worker 已存在 || -2: Worker 列表已满
+     * @return Worker ID || -1: Worker 已存在 || -2: 无空闲 Worker ID || -3: 启动隔离中
      */
     @Override
     public Integer registry(RegistryBody body) {
-        if (isWorkerExist(body.getIp(), body.getMac())) {
+        // 同一识别的并发注册只放行一个，查重与分配之间不会插入重复识别
+        if (!workerRegistry.beginRegistration(body.getIp(), body.getMac(), body.getStripe())) {
             return -1;
-        } else if (isWorkerListFull()) {
+        }
+        try {
+            return doRegistry(body);
+        } finally {
+            workerRegistry.endRegistration(body.getIp(), body.getMac(), body.getStripe());
+        }
+    }
+
+    private int doRegistry(RegistryBody body) {
+        long now = System.currentTimeMillis();
+        if (workerIdAllocator.warming(now)) {
+            return -3;
+        }
+        int workerId = workerIdAllocator.allocate(now);
+        if (workerId < 0) {
             return -2;
         }
 
         WorkerPO workerPO = new WorkerPO(
                 body.getIp(),
                 body.getMac(),
+                body.getStripe(),
                 body.getTimestamp(),
                 body.getExposedAddress()
         );
-        // 保存出错会抛出异常
-        WorkerPO savedWorkerPO = workerDAO.save(workerPO);
-        workerList.add(savedWorkerPO);
+        workerPO.setId(workerId);
+        // 注册仍同步保存；保存出错会抛出异常，ID 未下发可立即归还
+        WorkerPO savedWorkerPO;
+        try {
+            // 只先删除与新记录同识别或同 ID 的待删除记录，其余变更仍等定时写回
+            workerRegistry.flushConflicting(workerPO);
+            savedWorkerPO = workerDAO.save(workerPO);
+        } catch (RuntimeException e) {
+            workerIdAllocator.releaseNow(workerId);
+            throw e;
+        }
+        workerRegistry.add(savedWorkerPO);
+        heartbeatWheel.schedule(savedWorkerPO);
+        publishRouting();
         return savedWorkerPO.getId();
     }
 
-    private boolean isWorkerExist(String ip, String mac) {
-        WorkerPO workerPO = workerDAO.findTopByIpAndMacOrderByIdDesc(ip, mac);
-        return workerPO != null;
-    }
-
-    private boolean isWorkerListFull() {
-        WorkerPO workerPO = workerDAO.findTopByOrderByIdDesc();
-        return workerPO != null && workerPO.getId() >= 1023;
-    }
-
     /**
-     * Worker 心跳，更新库内心跳时间
+     * Worker 心跳，更新内存注册表中的心跳时间与负载分数，心跳时间延迟写回数据库
      *
      * @param body 心跳信息
      * @return Worker ID || -1: Worker 不存在
      */
     @Override
     public Integer heartbeat(HeartbeatBody body) {
-        WorkerPO workerPO = workerDAO.findById(body.getWorkerId()).orElse(null);
+        long begin = System.nanoTime();
+        try {
+            return handleHeartbeat(body);
+        } finally {
+            heartbeatTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Integer handleHeartbeat(HeartbeatBody body) {
+        if (body.getWorkerId() > maxWorkerId) {
+            log.warn("收到超出位布局上限的心跳: {}", body);
+            return -1;
+        }
+        long timestamp;
+        try {
+            validateTimestamp(body.getTimestamp());
+            timestamp = body.getTimestamp();
+        } catch (TimeAccuracyException e) {
+            log.warn("心跳时间不准确，使用本机时间: {}", body);
+            timestamp = Long.parseLong(e.getMessage());
+        }
+        WorkerPO workerPO = workerRegistry.findById(body.getWorkerId());
+        long interval = workerPO != null ? timestamp - workerPO.getLastHeartbeat() : 0L;
+        workerPO = workerRegistry.touch(body.getWorkerId(), timestamp);
         if (workerPO != null) {
-            try {
-                validateTimestamp(body.getTimestamp());
-                workerPO.setLastHeartbeat(body.getTimestamp());
-            } catch (TimeAccuracyException e) {
-                log.warn("心跳时间不准确，使用本机时间: {}", body);
-                workerPO.setLastHeartbeat(Long.parseLong(e.getMessage()));
-            }
-            // 保存出错会抛出异常
-            return workerDAO.save(workerPO).getId();
+            workerPO.setLoad(WorkerLoad.score(body, interval, sequenceCapacity));
+            return workerPO.getId();
         } else {
             log.warn("收到未注册节点的心跳: {}", body);
             return -1;
@@ -103,62 +249,324 @@ public class MasterService implements IMasterService {
     }
 
     /**
-     * 获取随机一个 Worker 的地址
+     * 按路由策略选择一个 Worker 的地址
      *
      * @return Worker 地址
      */
     @Override
     public String getWorker() {
+        return pickWorker().getExposedAddress();
+    }
+
+    /**
+     * 获取当前全部可路由 Worker 的地址，供客户端直连
+     *
+     * @return Worker 地址列表
+     */
+    @Override
+    public List<String> getWorkers() {
+        return routing.stream().map(WorkerPO::getExposedAddress).distinct().toList();
+    }
+
+    /**
+     * @return 当前 Worker 目录
+     */
+    @Override
+    public DirectorySnapshot getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 等待 Worker 目录变更<br >
+     * 版本与当前不同时立即完成；否则在下一次目录发布时完成，调用方超时放弃时应取消返回的 Future
+     *
+     * @param version 调用方缓存的版本
+     * @return 新目录
+     */
+    @Override
+    public CompletableFuture<DirectorySnapshot> watchDirectory(long version) {
+        DirectorySnapshot current = directory;
+        if (current.getVersion() != version) {
+            return CompletableFuture.completedFuture(current);
+        }
+        CompletableFuture<DirectorySnapshot> watcher = new CompletableFuture<>();
+        watcher.whenComplete((snapshot, e) -> directoryWatchers.remove(watcher));
+        directoryWatchers.add(watcher);
+        // 登记后复查，登记前刚发布的变更不会漏掉
+        current = directory;
+        if (current.getVersion() != version) {
+            watcher.complete(current);
+        }
+        return watcher;
+    }
+
+    /**
+     * 按路由策略从路由快照中选择一个 Worker，跳过两次巡检之间已超过心跳截止时间的 Worker
+     *
+     * @return Worker
+     */
+    private WorkerPO pickWorker() {
+        List<WorkerPO> snapshot = routing;
+        if (snapshot.isEmpty()) {
+            routingNoWorker.increment();
+            throw new WorkerManagementException("Worker 列表为空");
+        }
+        WorkerPO workerPO = workerSelector.select(snapshot, System.currentTimeMillis() - HEARTBEAT_TIMEOUT);
+        if (workerPO == null) {
+            routingNoWorker.increment();
+            throw new WorkerManagementException("无存活 Worker");
+        }
+        routingSelected.increment();
+        return workerPO;
+    }
+
+    /**
+     * 由注册表重建路由快照并整体发布，Worker 地址集合变化时同时发布新版本目录并唤醒长轮询<br >
+     * 发布方之间互斥，读取方不加锁
+     */
+    private void publishRouting() {
+        DirectorySnapshot published = null;
+        routingLock.lock();
+        try {
+            routing = List.copyOf(workerRegistry.all());
+            List<String> workers = getWorkers();
+            if (!workers.equals(directory.getWorkers())) {
+                published = new DirectorySnapshot(directory.getVersion() + 1, workers);
+                directory = published;
+            }
+        } finally {
+            routingLock.unlock();
+        }
+        if (published != null) {
+            for (CompletableFuture<DirectorySnapshot> watcher : directoryWatchers) {
+                watcher.complete(published);
+            }
+        }
+    }
+
+    /**
+     * <strong>仅在代理模式调用</strong><br >
+     * 从本地 ID 池取出一个 ID，低于低水位时异步补充；池为空时等待补充任务放入下一批，
+     * 请求线程不各自拉取，池耗尽时不会同时向 Worker 发出大量拉取请求
+     *
+     * @return ID
+     * @throws WorkerManagementException 补充失败或等待超时
+     */
+    @Override
+    public long nextId() {
+        long id = idPool.poll();
+        if (idPool.available() < appConfig.getProxyLowWater()) {
+            triggerRefill();
+        }
+        return id >= 0 ? id : awaitRefill();
+    }
+
+    /**
+     * 等待补充任务放入 ID 后取出
+     *
+     * @return ID
+     * @throws WorkerManagementException 补充失败或等待超时
+     */
+    private long awaitRefill() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REFILL_WAIT);
+        while (true) {
+            // 先取通知再取池，两次读取之间放入的批次会完成该通知，不会错过
+            CompletableFuture<Boolean> arrived = batchArrived.get();
+            long id = idPool.poll();
+            if (id >= 0) {
+                return id;
+            }
+            triggerRefill();
+            try {
+                if (!arrived.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    // 补充任务拉取失败，取走结束前最后放入的 ID 后放弃
+                    id = idPool.poll();
+                    if (id >= 0) {
+                        return id;
+                    }
+                    throw new WorkerManagementException("ID 池为空");
+                }
+            } catch (TimeoutException e) {
+                throw new WorkerManagementException("ID 池为空");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WorkerManagementException("等待 ID 池补充被中断");
+            } catch (ExecutionException e) {
+                throw new WorkerManagementException("ID 池为空");
+            }
+        }
+    }
+
+    /**
+     * 异步补充 ID 池，同一时刻仅一个补充任务
+     */
+    private void triggerRefill() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        refillExecutor.execute(() -> {
+            boolean fetched = true;
+            try {
+                while (idPool.available() < appConfig.getProxyLowWater()) {
+                    if (!fetchBatch()) {
+                        fetched = false;
+                        break;
+                    }
+                    signalBatch(true);
+                }
+            } finally {
+                // 先复位再通知，被唤醒的请求线程可发起新的补充
+                refilling.set(false);
+                signalBatch(fetched);
+            }
+        });
+    }
+
+    /**
+     * 唤醒等待 ID 池补充的请求线程
+     *
+     * @param fetched 是否放入了一批 ID
+     */
+    private void signalBatch(boolean fetched) {
+        batchArrived.getAndSet(new CompletableFuture<>()).complete(fetched);
+    }
+
+    /**
+     * 从路由策略选出的 Worker 拉取一批 ID 放入池中
+     *
+     * @return 是否拉取成功
+     */
+    private boolean fetchBatch() {
         WorkerPO workerPO;
         try {
-            workerPO = workerList.get(new Random().nextInt(workerList.size()));
+            workerPO = pickWorker();
+        } catch (WorkerManagementException e) {
+            return false;
+        }
+        // 拉取期间 Worker 可能过期或注销，其 ID 由池按作废轮次拒绝
+        long epoch = idPool.epoch(workerPO.getId());
+        try {
+            long[] ids = restTemplate.getForObject(
+                    workerPO.getExposedAddress() + "worker/ids?count=" + appConfig.getProxyBatchSize(),
+                    long[].class
+            );
+            if (ids == null || ids.length == 0) {
+                log.warn("Worker 未返回 ID: {}", workerPO.getExposedAddress());
+                return false;
+            }
+            // 选取时 Worker 可能已移出注册表而尚未作废
+            if (workerRegistry.findById(workerPO.getId()) == null) {
+                return false;
+            }
+            return idPool.offer(workerPO.getId(), epoch, ids);
         } catch (Exception e) {
-            throw new WorkerManagementException("Worker 列表为空");
+            log.error("拉取 ID 失败: {} {}", workerPO.getExposedAddress(), e.getMessage());
+            return false;
         }
-        return workerPO.getExposedAddress();
     }
 
     /**
-     * 检查 Worker 心跳状况<br >
-     * 重量锁，避免心跳更替时的请求返回了不应返回的 Worker
+     * 检查 Worker 心跳状况，每个时间轮刻度执行一次<br >
+     * 只复查时间轮中到期的 Worker；过期 Worker 先移出注册表并发布新路由快照，再以一条批量删除语句删除记录；期间 /master/id 不受阻塞
      */
-    private synchronized void checkWorker() {
-        Iterable<WorkerPO> workerPOList = workerDAO.findAll();
-        workerList.clear();
-        for (WorkerPO workerPO : workerPOList) {
-            if (System.currentTimeMillis() - workerPO.getLastHeartbeat() > 10000L) {
-                workerDAO.delete(workerPO);
+    private void checkWorker() {
+        sweepTimer.record(this::sweepWorker);
+    }
+
+    private void sweepWorker() {
+        long now = System.currentTimeMillis();
+        List<WorkerPO> due = heartbeatWheel.advance(now);
+        if (due.isEmpty()) {
+            return;
+        }
+        List<WorkerPO> expired = workerRegistry.expire(due, now - HEARTBEAT_TIMEOUT);
+        // 复查与移除之间恰好收到心跳的 Worker 仍在注册表内，按新的截止时间重新登记
+        if (expired.size() < due.size()) {
+            for (WorkerPO workerPO : due) {
+                if (workerRegistry.findById(workerPO.getId()) == workerPO) {
+                    heartbeatWheel.schedule(workerPO);
+                }
             }
-            workerList.add(workerPO);
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        publishRouting();
+        for (WorkerPO workerPO : expired) {
+            log.warn("Worker 心跳超时，移除: {}", workerPO);
+            workerIdAllocator.release(workerPO.getId(), now);
+            dropBatches(workerPO.getId());
+        }
+    }
+
+    /**
+     * 丢弃来自指定 Worker 的已拉取 ID
+     *
+     * @param workerId Worker ID
+     */
+    private void dropBatches(int workerId) {
+        long dropped = idPool.revoke(workerId);
+        if (dropped > 0) {
+            log.warn("Worker {} 已失效，丢弃 {} 个池内 ID", workerId, dropped);
         }
     }
 
     /**
      * <strong>仅在 Master 模式调用，Worker 不需要</strong><br >
-     * 初始化 Worker 列表
+     * 从数据库重建内存注册表并初始化 Worker 列表，已有记录的 Worker ID 标记为占用，
+     * 其余 ID 自此刻起隔离
      */
     @Override
     public void initWorkerList() {
-        Iterable<WorkerPO> workerPOList = workerDAO.findAll();
-        workerList.clear();
-        for (WorkerPO workerPO : workerPOList) {
-            workerList.add(workerPO);
+        workerRegistry.load();
+        for (WorkerPO workerPO : List.copyOf(workerRegistry.all())) {
+            if (!workerIdAllocator.reserve(workerPO.getId())) {
+                log.warn("Worker ID 超出可分配范围或重复，移除: {}", workerPO);
+                workerRegistry.remove(workerPO);
+            } else {
+                heartbeatWheel.schedule(workerPO);
+            }
         }
+        workerIdAllocator.quarantineUnreserved(System.currentTimeMillis());
+        publishRouting();
+    }
+
+    /**
+     * <strong>仅在 Master 模式调用，Worker 不需要</strong><br >
+     * 启动注册表定时写回任务
+     *
+     * @return 任务句柄
+     */
+    @Override
+    public ScheduledFuture<?> startFlushWorker() {
+        return scheduledExecutorService.scheduleWithFixedDelay(
+                workerRegistry::flush,
+                appConfig.getFlushInterval(),
+                appConfig.getFlushInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 立即写回注册表变更，关闭前调用
+     */
+    @Override
+    public void flushWorker() {
+        workerRegistry.flush();
     }
 
     /**
      * <strong>仅在 Master 模式调用，Worker 不需要</strong><br >
-     * 启动 Worker 检查定时任务
+     * 启动 Worker 检查定时任务，在时间轮专用线程上按刻度执行
      *
      * @return 任务句柄
      */
     @Override
     public ScheduledFuture<?> startCheckWorker() {
-        return scheduledExecutorService.scheduleAtFixedRate(
+        return wheelExecutorService.scheduleAtFixedRate(
                 this::checkWorker,
-                1,
-                10,
-                TimeUnit.SECONDS);
+                HEARTBEAT_TICK,
+                HEARTBEAT_TICK,
+                TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -169,15 +577,12 @@ public class MasterService implements IMasterService {
      */
     @Override
     public boolean unregister(RegistryBody body) {
-        WorkerPO workerPO = workerDAO.findTopByIpAndMacOrderByIdDesc(body.getIp(), body.getMac());
+        WorkerPO workerPO = workerRegistry.findByIdentity(body.getIp(), body.getMac(), body.getStripe());
         if (workerPO != null) {
-            workerDAO.delete(workerPO);
-            int index = workerList.indexOf(workerPO);
-            if (index != -1) {
-                workerList.remove(index);
-            } else {
-                log.error("Worker 未在工作列表中找到: {}", workerPO);
-            }
+            workerRegistry.remove(workerPO);
+            publishRouting();
+            workerIdAllocator.release(workerPO.getId(), System.currentTimeMillis());
+            dropBatches(workerPO.getId());
             return true;
         }
         log.error("Worker 未注册: {}", body);
@@ -1,56 +1,142 @@
 package press.cirno.snowflakedemo.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.web.client.RestTemplate;
 import press.cirno.snowflakedemo.config.AppConfig;
-import press.cirno.snowflakedemo.exception.TimeAccuracyException;
 import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.generator.BitLayout;
+import press.cirno.snowflakedemo.generator.BufferedIdGenerator;
+import press.cirno.snowflakedemo.generator.CasIdGenerator;
+import press.cirno.snowflakedemo.generator.CombiningIdGenerator;
+import press.cirno.snowflakedemo.generator.GeneratorContext;
+import press.cirno.snowflakedemo.generator.GeneratorStats;
+import press.cirno.snowflakedemo.generator.IIdGenerator;
+import press.cirno.snowflakedemo.generator.ITimeSource;
+import press.cirno.snowflakedemo.generator.IWaitStrategy;
+import press.cirno.snowflakedemo.generator.LockIdGenerator;
+import press.cirno.snowflakedemo.generator.StripedIdGenerator;
+import press.cirno.snowflakedemo.generator.TimestampCheckpoint;
 import press.cirno.snowflakedemo.pojo.HeartbeatBody;
 import press.cirno.snowflakedemo.pojo.RegistryBody;
 import press.cirno.snowflakedemo.pojo.StandardResponse;
 import press.cirno.snowflakedemo.util.NetworkUtil;
+import press.cirno.snowflakedemo.util.ThreadUtil;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
 @Data
 public class WorkerService implements IWorkerService {
+    private static final Pattern NAMESPACE_PATTERN = Pattern.compile("^[A-Za-z0-9_-]{1,32}$");
+    // 租约：距上次成功心跳（或注册）超过该时间即停止发号。Master 在心跳时间 10 秒后移除 Worker 并可在隔离期后复用其 ID，
+    // 心跳时间取 Worker 时钟且最多落后 Master 3 秒，租约须短于 10 - 3 秒，再留 1 秒余量
+    private static final long LEASE_NANOS = TimeUnit.MILLISECONDS.toNanos(6000L);
+    // Master 启动后的 Worker ID 隔离期内注册的最长等待次数，每次 1 秒
+    private static final int REGISTER_WAITS = 60;
 
     // 可配置块
     private String clockDriftStrategy;
     private long waitTime;
     private long startTime;
+    private long borrowLimit;
 
     // 应用服务相关
-    private boolean registered = false;
+    private volatile boolean registered = false;
     private long lastHeartbeat = 0L;
+    // 租约起点（System.nanoTime），经 Master 注册后才启用；基准测试等无 Master 场景不受租约限制
+    private volatile boolean leased = false;
+    private volatile long leaseStart;
+    // 最近一次注册请求发出时刻（System.nanoTime）
+    private long attemptStamp;
+    // 首个条带注册成功的请求发出时刻，各条带中最早，作为租约起点
+    private long registerStamp;
     private RegistryBody body;
 
-    // 雪花算法相关
-    private long lastTimestamp = 0L;
-    private long sequence = 0;
-    private int workerId = -1;
+    // 雪花算法相关，每个条带一个 Worker ID
+    private int[] workerIds;
+    private long datacenterId = 0L;
+    private BitLayout layout;
+    private IIdGenerator generator;
+    // 每组条带数，默认组与各命名空间组相同
+    private int stripes;
+    // 命名空间生成器：各自独立的序列号状态与锁，互不竞争
+    private List<String> declaredNamespaces = List.of();
+    private final Map<String, IIdGenerator> namespaceGenerators = new ConcurrentHashMap<>();
+    // 非唯一模式下按需创建的命名空间各条带生成器，检查点需读取其借用领先量
+    private final List<IIdGenerator> namespaceStripeGenerators = new CopyOnWriteArrayList<>();
+    // 命名空间创建互斥，仅在首次使用某命名空间时获取
+    private final ReentrantLock namespaceLock = new ReentrantLock();
+    // 各条带共用
+    private ITimeSource timeSource;
+    private IWaitStrategy waitStrategy;
+    // 时间戳检查点与重启后的时间戳下限
+    private TimestampCheckpoint checkpoint;
+    private ScheduledFuture<?> checkpointFuture;
+    private long timestampFloor = 0L;
+
+    // 负载统计：每个条带一份生成器统计，上次心跳时的读数用于计算增量
+    private IIdGenerator[] stripeGenerators;
+    private GeneratorStats[] stripeStats;
+    private long[] reportedIssued;
+    private long[] reportedExhaustionWaits;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder requestNanos = new LongAdder();
+    private long reportedRequestCount = 0L;
+    private long reportedRequestNanos = 0L;
 
     private final AppConfig appConfig;
     private final RestTemplate restTemplate;
     private final ScheduledExecutorService service;
+    // 检查点单独一个线程：心跳请求挂起或重试时不推迟写入，写入磁盘缓慢时也不推迟心跳
+    private final ScheduledExecutorService checkpointService;
+    private final MeterRegistry meterRegistry;
+    // 初始化期间含注册重试的阻塞调用，不用 synchronized 以免钉住虚拟线程的载体线程
+    private final ReentrantLock initLock = new ReentrantLock();
 
     @Autowired
-    public WorkerService(AppConfig appConfig) {
+    public WorkerService(AppConfig appConfig, MeterRegistry meterRegistry) {
         this.appConfig = appConfig;
-        this.restTemplate = new RestTemplate();
-        this.service = new ScheduledThreadPoolExecutor(1);
+        this.meterRegistry = meterRegistry;
+        // 注册、心跳、注销均须有超时：心跳挂起时 Worker 无法发现自己已被移除
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build());
+        requestFactory.setReadTimeout(Duration.ofSeconds(2));
+        this.restTemplate = new RestTemplate(requestFactory);
+        // 心跳与检查点写入为阻塞调用，启用虚拟线程时在虚拟线程上执行
+        this.service = new ScheduledThreadPoolExecutor(1,
+                ThreadUtil.factory("worker-heartbeat", appConfig.isVirtualThreads()));
+        this.checkpointService = new ScheduledThreadPoolExecutor(1,
+                ThreadUtil.factory("worker-checkpoint", appConfig.isVirtualThreads()));
         this.body = new RegistryBody();
     }
 
@@ -60,48 +146,198 @@ public class WorkerService implements IWorkerService {
      * @return ID
      */
     @Override
-    public synchronized long nextId() {
+    public long nextId() {
+        checkServing();
+        long begin = System.nanoTime();
+        long id = generator.nextId();
+        recordRequest(begin);
+        return id;
+    }
+
+    /**
+     * 批量生成 ID<br >
+     * 数量超过上限时按上限截断
+     *
+     * @param count 数量
+     * @return ID 数组 || 空数组: 数量不合法
+     */
+    @Override
+    public long[] nextIds(int count) {
+        checkServing();
+        if (count < 1) {
+            return new long[0];
+        }
+        long begin = System.nanoTime();
+        long[] ids = generator.nextIds(Math.min(count, appConfig.getBatchMaxCount()));
+        recordRequest(begin);
+        return ids;
+    }
+
+    /**
+     * 在命名空间内生成 ID
+     *
+     * @param namespace 命名空间
+     * @return ID
+     */
+    @Override
+    public long nextId(String namespace) {
+        checkServing();
+        long begin = System.nanoTime();
+        long id = namespaceGenerator(namespace).nextId();
+        recordRequest(begin);
+        return id;
+    }
+
+    /**
+     * 在命名空间内批量生成 ID<br >
+     * 数量超过上限时按上限截断
+     *
+     * @param namespace 命名空间
+     * @param count     数量
+     * @return ID 数组 || 空数组: 数量不合法
+     */
+    @Override
+    public long[] nextIds(String namespace, int count) {
+        checkServing();
+        if (count < 1) {
+            return new long[0];
+        }
+        long begin = System.nanoTime();
+        long[] ids = namespaceGenerator(namespace).nextIds(Math.min(count, appConfig.getBatchMaxCount()));
+        recordRequest(begin);
+        return ids;
+    }
+
+    /**
+     * 非阻塞生成 ID，供异步模式使用：当前毫秒序列号耗尽或处于可容忍的回拨中时不等待时钟
+     *
+     * @param namespace 命名空间 || null: 默认
+     * @return ID || {@link IIdGenerator#UNAVAILABLE}: 下一毫秒重试
+     */
+    @Override
+    public long tryNextId(String namespace) {
+        checkServing();
+        long begin = System.nanoTime();
+        long id = (namespace == null ? generator : namespaceGenerator(namespace)).tryNextId();
+        if (id != IIdGenerator.UNAVAILABLE) {
+            recordRequest(begin);
+        }
+        return id;
+    }
+
+    /**
+     * 非阻塞批量生成 ID：只取当前毫秒剩余的序列号，不足时返回已取得的部分<br >
+     * 数量超过上限时按上限截断
+     *
+     * @param namespace 命名空间 || null: 默认
+     * @param count     最大数量
+     * @return ID 数组 || 空数组: 数量不合法，或下一毫秒重试
+     */
+    @Override
+    public long[] tryNextIds(String namespace, int count) {
+        checkServing();
+        if (count < 1) {
+            return new long[0];
+        }
+        long begin = System.nanoTime();
+        long[] ids = (namespace == null ? generator : namespaceGenerator(namespace))
+                .tryNextIds(Math.min(count, appConfig.getBatchMaxCount()));
+        if (ids.length > 0) {
+            recordRequest(begin);
+        }
+        return ids;
+    }
+
+    /**
+     * 发号前检查：已注册，且租约未过期
+     *
+     * @throws WorkerManagementException 未注册或超过租约时间未成功心跳
+     */
+    private void checkServing() {
         if (!registered) {
             log.error("Worker 未注册");
             throw new WorkerManagementException("Worker 未注册");
         }
+        // Master 可能已将本节点移除并把 Worker ID 分配给新节点，继续发号会产生重复 ID
+        if (leased && System.nanoTime() - leaseStart > LEASE_NANOS) {
+            throw new WorkerManagementException("心跳超时，暂停发号");
+        }
+    }
 
-        long timestamp = getTime();
-        while (timestamp < lastTimestamp) {
-            if (lastTimestamp - timestamp <= 30L && clockDriftStrategy.equalsIgnoreCase("auto")) {
-                timestamp = waitNextMillis(lastTimestamp);
-            } else if (clockDriftStrategy.equalsIgnoreCase("wait") && lastTimestamp - timestamp <= waitTime) {
-                timestamp = waitNextMillis(lastTimestamp);
-            } else {
-                log.error("时钟回拨，拒绝生成 ID");
-                throw new TimeAccuracyException("时钟回拨，拒绝生成 ID");
+    /**
+     * 取命名空间的生成器，非唯一模式下首次使用时创建
+     *
+     * @param namespace 命名空间
+     * @return 生成器
+     * @throws WorkerManagementException 命名空间不合法、未声明（唯一模式）或超出数量上限
+     */
+    private IIdGenerator namespaceGenerator(String namespace) {
+        IIdGenerator namespaceGenerator = namespaceGenerators.get(namespace);
+        if (namespaceGenerator != null) {
+            return namespaceGenerator;
+        }
+        if (appConfig.isNamespaceUnique()) {
+            throw new WorkerManagementException("未声明的命名空间: " + namespace);
+        }
+        if (namespace == null || !NAMESPACE_PATTERN.matcher(namespace).matches()) {
+            throw new WorkerManagementException("命名空间不合法: " + namespace);
+        }
+        namespaceLock.lock();
+        try {
+            namespaceGenerator = namespaceGenerators.get(namespace);
+            if (namespaceGenerator == null) {
+                if (namespaceGenerators.size() >= appConfig.getNamespaceMaxCount()) {
+                    log.error("命名空间数量已达上限 {}，拒绝创建: {}", appConfig.getNamespaceMaxCount(), namespace);
+                    throw new WorkerManagementException("命名空间数量已达上限");
+                }
+                namespaceGenerator = createSharedNamespaceGenerator();
+                namespaceGenerators.put(namespace, namespaceGenerator);
+                log.info("创建命名空间: {}", namespace);
             }
+            return namespaceGenerator;
+        } finally {
+            namespaceLock.unlock();
         }
+    }
 
-        if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & 0xFFF;
-            if (sequence == 0) {
-                timestamp = waitNextMillis(lastTimestamp);
-            }
-        } else {
-            sequence = 0;
+    /**
+     * 非唯一模式的命名空间生成器：沿用默认组的 Worker ID 与运行统计，序列号状态独立
+     *
+     * @return 生成器
+     */
+    private IIdGenerator createSharedNamespaceGenerator() {
+        IIdGenerator[] group = new IIdGenerator[stripes];
+        for (int i = 0; i < stripes; i++) {
+            group[i] = createStripeGenerator(workerIds[i], stripeStats[i]);
+            namespaceStripeGenerators.add(group[i]);
         }
-        lastTimestamp = timestamp;
-        return ((timestamp - startTime) << 22) | ((long) workerId << 10) | sequence;
+        return group.length == 1 ? group[0] : new StripedIdGenerator(group);
     }
 
     /**
-     * 等待到下一毫秒
+     * 解析声明的命名空间，忽略不合法的名称
      *
-     * @param lastTimestamp 上次时间戳
-     * @return 等待到的时间戳
+     * @return 去重后按声明顺序排列的命名空间
      */
-    private long waitNextMillis(long lastTimestamp) {
-        long timestamp = getTime();
-        while (timestamp <= lastTimestamp) {
-            timestamp = getTime();
+    private List<String> parseNamespaces() {
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : appConfig.getNamespaceNames().split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!NAMESPACE_PATTERN.matcher(name).matches()) {
+                log.warn("忽略不合法的命名空间: {}", name);
+                continue;
+            }
+            names.add(name);
         }
-        return timestamp;
+        return List.copyOf(names);
+    }
+
+    private void recordRequest(long begin) {
+        requestNanos.add(System.nanoTime() - begin);
+        requestCount.increment();
     }
 
     /**
@@ -118,12 +354,35 @@ public class WorkerService implements IWorkerService {
      * 在 Spring 容器启动后按需调用
      */
     @Override
-    public synchronized void init() {
-        if (register() < 1) {
-            log.error("Worker 注册失败");
-            throw new WorkerManagementException("Worker 注册失败");
+    public void init() {
+        initLock.lock();
+        try {
+            if (register() < 1) {
+                log.error("Worker 注册失败");
+                throw new WorkerManagementException("Worker 注册失败");
+            }
+            leaseStart = registerStamp;
+            leased = true;
+            initGenerator();
+        } finally {
+            initLock.unlock();
+        }
+    }
+
+    /**
+     * 按已申领的 Worker ID 初始化生成器并开始对外服务<br >
+     * 由 {@link #init()} 在注册后调用；基准测试等无 Master 场景可先设置 workerIds 再直接调用
+     */
+    public void initGenerator() {
+        initLock.lock();
+        try {
+            doInitGenerator();
+        } finally {
+            initLock.unlock();
         }
-        lastTimestamp = getTime();
+    }
+
+    private void doInitGenerator() {
         clockDriftStrategy = appConfig.getClockDriftStrategy().equalsIgnoreCase("reject")
                 || appConfig.getClockDriftStrategy().equalsIgnoreCase("wait")
                 ? appConfig.getClockDriftStrategy() : "auto";
@@ -133,6 +392,12 @@ public class WorkerService implements IWorkerService {
         } else {
             waitTime = appConfig.getWaitTime();
         }
+        if (appConfig.getBorrowLimit() > 1000L) {
+            log.warn("借用未来毫秒上限过长，最大仅支持 1000 ms");
+            borrowLimit = 1000L;
+        } else {
+            borrowLimit = Math.max(0L, appConfig.getBorrowLimit());
+        }
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         try {
             startTime = sdf.parse(appConfig.getStartTime()).getTime();
@@ -143,15 +408,262 @@ public class WorkerService implements IWorkerService {
             } catch (Exception ignored) {
             }
         }
+        stripes = Math.max(1, appConfig.getStripes());
+        declaredNamespaces = parseNamespaces();
+        if (appConfig.isNamespaceUnique() && workerIds.length < stripes * (1 + declaredNamespaces.size())) {
+            log.error("Worker ID 数量 {} 不足以覆盖 {} 个命名空间", workerIds.length, declaredNamespaces.size());
+            unregisterStripes(workerIds.length);
+            throw new WorkerManagementException("Worker ID 数量不足以覆盖声明的命名空间");
+        }
+        // 移位与掩码在此一次算好
+        try {
+            layout = BitLayout.of(appConfig);
+        } catch (IllegalStateException e) {
+            unregisterStripes(workerIds.length);
+            throw e;
+        }
+        for (int workerId : workerIds) {
+            if (workerId > layout.getMaxWorkerId()) {
+                log.error("Worker ID {} 超出位布局上限 {}", workerId, layout.getMaxWorkerId());
+                unregisterStripes(workerIds.length);
+                throw new WorkerManagementException("Worker ID 超出位布局上限");
+            }
+        }
+        // 数据中心 ID 不合法时不回退到 0，多个数据中心合并为 0 会产生重复 ID
+        if (appConfig.getDatacenterId() < 0 || appConfig.getDatacenterId() > layout.getMaxDatacenterId()) {
+            log.error("数据中心 ID {} 超出位布局上限 {}", appConfig.getDatacenterId(), layout.getMaxDatacenterId());
+            unregisterStripes(workerIds.length);
+            throw new IllegalStateException("数据中心 ID 超出位布局上限");
+        }
+        datacenterId = appConfig.getDatacenterId();
+        long elapsed = System.currentTimeMillis() - startTime;
+        if (elapsed < 0L || elapsed > layout.getMaxTimestamp()) {
+            log.error("当前时间距起始时间 {} ms，超出 {} 位时间戳可表示的范围", elapsed, layout.getTimestampBits());
+            unregisterStripes(workerIds.length);
+            throw new IllegalStateException("当前时间超出时间戳位数可表示的范围");
+        }
+        long remaining = layout.getMaxTimestamp() - elapsed;
+        if (remaining < TimeUnit.DAYS.toMillis(365)) {
+            log.warn("时间戳位数将在 {} 天后耗尽", TimeUnit.MILLISECONDS.toDays(remaining));
+        }
+        log.info("位布局: {}，单节点每毫秒 {} 个 ID", layout, layout.getSequenceMask() + 1);
+        log.info("生成器: {}，预生成缓冲: {}，时间源: {}，等待策略: {}", appConfig.getGenerator(),
+                appConfig.isBufferEnabled(), appConfig.getTimeSource(), appConfig.getWaitStrategy());
+        timeSource = ITimeSource.of(appConfig.getTimeSource());
+        waitStrategy = IWaitStrategy.of(appConfig.getWaitStrategy());
+        openCheckpoint();
+        generator = createGenerator();
+        startCheckpoint();
+        bindMetrics();
+        // 生成器就绪后才对外提供服务
+        registered = true;
     }
 
     /**
-     * 注册 Worker，三次重试
+     * 打开时间戳检查点并由保存值得出时间戳下限<br >
+     * 两次写入之间发出的 ID 时间戳可能超过保存值，下限在保存值上加两个写入间隔与借用上限的余量<br >
+     * 检查点文件按数据中心与首个 Worker ID 命名：下限只对同一 Worker ID 有意义，同一主机上的多个 Worker 各用一个文件<br >
+     * 文件无法打开或已被占用时注销并启动失败
+     */
+    private void openCheckpoint() {
+        if (!appConfig.isCheckpointEnabled()) {
+            return;
+        }
+        Path path = Path.of(appConfig.getCheckpointDir(), "worker-" + datacenterId + "-" + workerIds[0] + ".ckpt");
+        try {
+            checkpoint = new TimestampCheckpoint(path, this::highestTimestamp);
+        } catch (IOException e) {
+            // 静默跳过会在重启后失去保护，需要时以 sf.worker.checkpoint.enabled=false 显式关闭
+            log.error("打开时间戳检查点失败: {}，如不需要重启保护请设置 sf.worker.checkpoint.enabled=false", e.getMessage());
+            unregisterStripes(workerIds.length);
+            throw new WorkerManagementException("打开时间戳检查点失败");
+        } catch (IllegalStateException e) {
+            log.error("{}，另一进程正使用相同的 Worker ID", e.getMessage());
+            unregisterStripes(workerIds.length);
+            throw e;
+        }
+        long saved = checkpoint.load();
+        if (saved > 0L) {
+            timestampFloor = saved + 2 * appConfig.getCheckpointInterval() + borrowLimit;
+            long lead = timestampFloor - timeSource.currentTimeMillis();
+            if (lead > 0L) {
+                log.warn("检查点时间戳领先当前时钟 {} ms，此前不会发出 ID", lead);
+            }
+        }
+    }
+
+    /**
+     * 定时写入检查点
+     */
+    private void startCheckpoint() {
+        if (checkpoint == null) {
+            return;
+        }
+        checkpoint.save();
+        checkpointFuture = checkpointService.scheduleAtFixedRate(
+                checkpoint::save,
+                appConfig.getCheckpointInterval(),
+                appConfig.getCheckpointInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 不小于已发出最大时间戳的值：当前时间与各条带借用领先量之和，不低于时间戳下限
      *
-     * @return Worker ID || -1: 注册失败
+     * @return 时间戳
+     */
+    private long highestTimestamp() {
+        long borrowed = 0L;
+        for (IIdGenerator stripeGenerator : stripeGenerators) {
+            borrowed = Math.max(borrowed, stripeGenerator.borrowedMillis());
+        }
+        for (IIdGenerator stripeGenerator : namespaceStripeGenerators) {
+            borrowed = Math.max(borrowed, stripeGenerator.borrowedMillis());
+        }
+        return Math.max(timeSource.currentTimeMillis() + borrowed, timestampFloor);
+    }
+
+    /**
+     * 按配置创建生成器：每个条带一个独立生成器，多于一个条带时按线程分散<br >
+     * 唯一模式下前 stripes 个条带为默认组，其后每 stripes 个条带为一个声明的命名空间；
+     * 非唯一模式下声明的命名空间在此预先创建
+     *
+     * @return 默认组生成器
+     */
+    private IIdGenerator createGenerator() {
+        stripeGenerators = new IIdGenerator[workerIds.length];
+        stripeStats = new GeneratorStats[workerIds.length];
+        reportedIssued = new long[workerIds.length];
+        reportedExhaustionWaits = new long[workerIds.length];
+        for (int i = 0; i < workerIds.length; i++) {
+            stripeStats[i] = new GeneratorStats();
+            stripeGenerators[i] = createStripeGenerator(workerIds[i], stripeStats[i]);
+        }
+        if (workerIds.length > 1) {
+            log.info("启用 {} 个生成器条带，Worker ID: {}", stripeGenerators.length, Arrays.toString(workerIds));
+        }
+        namespaceGenerators.clear();
+        namespaceStripeGenerators.clear();
+        if (appConfig.isNamespaceUnique()) {
+            for (int k = 0; k < declaredNamespaces.size(); k++) {
+                namespaceGenerators.put(declaredNamespaces.get(k), group(stripes * (k + 1)));
+            }
+        } else {
+            for (String namespace : declaredNamespaces) {
+                namespaceGenerators.put(namespace, createSharedNamespaceGenerator());
+            }
+        }
+        if (!declaredNamespaces.isEmpty()) {
+            log.info("命名空间: {}，跨命名空间唯一: {}", declaredNamespaces, appConfig.isNamespaceUnique());
+        }
+        return group(0);
+    }
+
+    /**
+     * @param from 组内首个条带的下标
+     * @return 由连续 stripes 个条带组成的生成器
+     */
+    private IIdGenerator group(int from) {
+        if (stripes == 1) {
+            return stripeGenerators[from];
+        }
+        return new StripedIdGenerator(Arrays.copyOfRange(stripeGenerators, from, from + stripes));
+    }
+
+    /**
+     * 注册生成器指标，按条带的 Worker ID 打标签<br >
+     * 指标只在采集时读取 LongAdder 汇总值，热路径不经过 Micrometer
+     */
+    private void bindMetrics() {
+        for (int i = 0; i < workerIds.length; i++) {
+            String workerId = String.valueOf(workerIds[i]);
+            GeneratorStats stats = stripeStats[i];
+            FunctionCounter.builder("snowflake.worker.ids.issued", stats, GeneratorStats::getIssued)
+                    .description("已生成 ID 数")
+                    .tag("worker.id", workerId)
+                    .register(meterRegistry);
+            FunctionCounter.builder("snowflake.worker.sequence.exhaustion", stats, GeneratorStats::getExhaustionWaits)
+                    .description("序列号耗尽次数")
+                    .tag("worker.id", workerId)
+                    .register(meterRegistry);
+            FunctionCounter.builder("snowflake.worker.sequence.borrowed", stats, GeneratorStats::getBorrows)
+                    .description("序列号耗尽时借用未来毫秒的次数")
+                    .tag("worker.id", workerId)
+                    .register(meterRegistry);
+            Gauge.builder("snowflake.worker.borrowed.millis", stripeGenerators[i], IIdGenerator::borrowedMillis)
+                    .description("逻辑时间戳领先系统时钟的毫秒数")
+                    .tag("worker.id", workerId)
+                    .register(meterRegistry);
+            FunctionCounter.builder("snowflake.worker.clock.drift", stats, GeneratorStats::getClockDriftWaits)
+                    .description("时钟回拨次数")
+                    .tags("worker.id", workerId, "strategy", clockDriftStrategy, "outcome", "waited")
+                    .register(meterRegistry);
+            FunctionCounter.builder("snowflake.worker.clock.drift", stats, GeneratorStats::getClockDriftRejects)
+                    .description("时钟回拨次数")
+                    .tags("worker.id", workerId, "strategy", clockDriftStrategy, "outcome", "rejected")
+                    .register(meterRegistry);
+            FunctionTimer.builder("snowflake.worker.wait.next.millis", stats,
+                            GeneratorStats::getWaits, GeneratorStats::getWaitNanos, TimeUnit.NANOSECONDS)
+                    .description("等待下一毫秒的耗时，含序列号耗尽与时钟回拨")
+                    .tag("worker.id", workerId)
+                    .register(meterRegistry);
+            Gauge.builder("snowflake.worker.sequence.usage", stripeGenerators[i], IIdGenerator::sequenceUsage)
+                    .description("最近一毫秒的序列号使用率")
+                    .tag("worker.id", workerId)
+                    .register(meterRegistry);
+        }
+        FunctionTimer.builder("snowflake.worker.requests", this,
+                        worker -> worker.requestCount.sum(), worker -> worker.requestNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("ID 请求耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按配置创建单个条带的生成器：lock（默认，兼容旧值 synchronized）/cas/combining，可选外层预生成缓冲
+     *
+     * @param workerId 条带的 Worker ID
+     * @param stats    条带的运行统计
+     * @return 生成器
+     */
+    private IIdGenerator createStripeGenerator(int workerId, GeneratorStats stats) {
+        GeneratorContext context = new GeneratorContext();
+        context.setWorkerId(workerId);
+        context.setDatacenterId(datacenterId);
+        context.setLayout(layout);
+        context.setStartTime(startTime);
+        context.setClockDriftStrategy(clockDriftStrategy);
+        context.setWaitTime(waitTime);
+        context.setBorrowLimit(borrowLimit);
+        context.setTimestampFloor(timestampFloor);
+        context.setStats(stats);
+        context.setTimeSource(timeSource);
+        context.setWaitStrategy(waitStrategy);
+        IIdGenerator idGenerator;
+        if (appConfig.getGenerator().equalsIgnoreCase("cas")) {
+            idGenerator = new CasIdGenerator(context);
+        } else if (appConfig.getGenerator().equalsIgnoreCase("combining")) {
+            idGenerator = new CombiningIdGenerator(context);
+        } else {
+            idGenerator = new LockIdGenerator(context);
+        }
+        if (appConfig.isBufferEnabled()) {
+            idGenerator = new BufferedIdGenerator(
+                    context,
+                    idGenerator,
+                    appConfig.getBufferSize(),
+                    appConfig.getBufferRefillThreshold()
+            );
+        }
+        return idGenerator;
+    }
+
+    /**
+     * 注册 Worker，按条带数申领多个 Worker ID
+     *
+     * @return 申领到的 Worker ID 数量 || -1: 注册失败
      */
     private int register() {
-        List<String> address = NetworkUtil.getLocalNetworkInfo();
+        List<String> address = localAddress();
         if (address == null) {
             log.error("无法获取本机 IP / Mac 地址，注册失败");
             return -1;
@@ -161,21 +673,65 @@ public class WorkerService implements IWorkerService {
         this.body.setTimestamp(getTime());
         this.body.setExposedAddress(appConfig.getExposedAddress());
 
+        // 唯一模式下每个声明的命名空间另申领一组 Worker ID，条带序号接在默认组之后
+        int groups = appConfig.isNamespaceUnique() ? 1 + parseNamespaces().size() : 1;
+        workerIds = new int[Math.max(1, appConfig.getStripes()) * groups];
+        for (int stripe = 0; stripe < workerIds.length; stripe++) {
+            int id = registerStripe(stripe);
+            if (id < 1) {
+                // 归还已申领的 Worker ID
+                unregisterStripes(stripe);
+                return -1;
+            }
+            workerIds[stripe] = id;
+            if (stripe == 0) {
+                registerStamp = attemptStamp;
+            }
+        }
+        return workerIds.length;
+    }
+
+    /**
+     * 本机 IP / Mac，配置了 sf.worker.ip 与 sf.worker.mac 时使用配置值
+     *
+     * @return IP 和 MAC 为两个元素的列表 || null
+     */
+    private List<String> localAddress() {
+        if (!appConfig.getWorkerIp().isBlank() && !appConfig.getWorkerMac().isBlank()) {
+            return List.of(appConfig.getWorkerIp(), appConfig.getWorkerMac());
+        }
+        return NetworkUtil.getLocalNetworkInfo();
+    }
+
+    /**
+     * 为单个条带注册，三次重试
+     *
+     * @param stripe 条带序号
+     * @return Worker ID || -1: 注册失败
+     */
+    private int registerStripe(int stripe) {
+        RegistryBody stripeBody = stripeBody(stripe);
         int retry = 0;
+        int waits = 0;
         while (retry < 3) {
             try {
+                // 每次尝试刷新时间戳，Master 以其作为首次心跳时间
+                attemptStamp = System.nanoTime();
+                stripeBody.setTimestamp(getTime());
                 ResponseEntity<StandardResponse> response = restTemplate.postForEntity(
                         appConfig.getMasterAddress() + "/master/registry",
-                        this.body,
+                        stripeBody,
                         StandardResponse.class
                 );
                 if (response.getStatusCode() == HttpStatus.OK) {
                     Assert.notNull(response.getBody(), "注册请求返回为空");
                     StandardResponse<Integer> responseBody = response.getBody();
                     if (responseBody.getCode() == 0 && responseBody.getData() > 0) {
-                        registered = true;
-                        workerId = responseBody.getData();
                         return responseBody.getData();
+                    } else if (responseBody.getCode() == -3 && waits < REGISTER_WAITS) {
+                        // Master 刚启动，Worker ID 隔离中，等待不计入重试次数
+                        log.warn("注册等待: {}", responseBody.getMessage());
+                        waits++;
                     } else {
                         log.error("注册失败: {}", responseBody.getMessage());
                         retry++;
@@ -198,21 +754,38 @@ public class WorkerService implements IWorkerService {
         return -1;
     }
 
+    /**
+     * 单个条带的注册信息，IP + Mac + 条带序号识别一个 Worker ID
+     *
+     * @param stripe 条带序号
+     * @return 注册信息
+     */
+    private RegistryBody stripeBody(int stripe) {
+        RegistryBody stripeBody = new RegistryBody(
+                body.getIp(),
+                body.getMac(),
+                getTime(),
+                body.getExposedAddress()
+        );
+        stripeBody.setStripe(stripe);
+        return stripeBody;
+    }
+
     /**
      * 开始心跳线程<br >
-     * 心跳间隔 10 秒<br >
+     * 心跳间隔 3 秒，Master 在最后一次心跳 10 秒后即移除 Worker，间隔须留出丢失一两次心跳的余量<br >
      * 在初始化后调用
      *
      * @return 心跳任务句柄
      */
     @Override
     public ScheduledFuture<?> startHeartbeat() {
-        return service.scheduleAtFixedRate(this::heartbeat, 5, 10, java.util.concurrent.TimeUnit.SECONDS);
+        return service.scheduleAtFixedRate(this::heartbeat, 3, 3, java.util.concurrent.TimeUnit.SECONDS);
     }
 
     /**
      * 心跳<br >
-     * 每 10 秒发送一次心跳，任意一次失败则退出
+     * 每 3 秒为每个已申领的 Worker ID 发送一次心跳，附带距上次心跳的负载统计，任意一次失败则退出
      */
     private void heartbeat() {
         if (!registered) {
@@ -220,7 +793,7 @@ public class WorkerService implements IWorkerService {
             System.exit(500);
         }
 
-        List<String> address = NetworkUtil.getLocalNetworkInfo();
+        List<String> address = localAddress();
         if (address == null) {
             log.error("无法获取本机 IP / Mac 地址，心跳失败");
             System.exit(500);
@@ -231,14 +804,42 @@ public class WorkerService implements IWorkerService {
             System.exit(500);
         }
 
-        HeartbeatBody heartbeatBody = new HeartbeatBody(
-                address.get(0),
-                address.get(1),
-                getTime(),
-                appConfig.getExposedAddress(),
-                workerId
-        );
+        // 请求耗时为进程整体平均值，各条带共用
+        long totalCount = requestCount.sum();
+        long totalNanos = requestNanos.sum();
+        long count = totalCount - reportedRequestCount;
+        long latencyMicros = count > 0 ? (totalNanos - reportedRequestNanos) / count / 1000L : 0L;
+        reportedRequestCount = totalCount;
+        reportedRequestNanos = totalNanos;
+        long begin = System.nanoTime();
+        for (int stripe = 0; stripe < workerIds.length; stripe++) {
+            HeartbeatBody heartbeatBody = new HeartbeatBody(
+                    address.get(0),
+                    address.get(1),
+                    getTime(),
+                    appConfig.getExposedAddress(),
+                    workerIds[stripe]
+            );
+            heartbeatBody.setStripe(stripe);
+            long issued = stripeStats[stripe].getIssued();
+            long exhaustionWaits = stripeStats[stripe].getExhaustionWaits();
+            heartbeatBody.setIdsIssued(issued - reportedIssued[stripe]);
+            heartbeatBody.setExhaustionWaits(exhaustionWaits - reportedExhaustionWaits[stripe]);
+            heartbeatBody.setLatencyMicros(latencyMicros);
+            reportedIssued[stripe] = issued;
+            reportedExhaustionWaits[stripe] = exhaustionWaits;
+            sendHeartbeat(heartbeatBody);
+        }
+        // 全部条带心跳成功才续约，起点取请求发出前，偏保守
+        leaseStart = begin;
+    }
 
+    /**
+     * 发送单个 Worker ID 的心跳，失败则退出
+     *
+     * @param heartbeatBody 心跳信息
+     */
+    private void sendHeartbeat(HeartbeatBody heartbeatBody) {
         try {
             ResponseEntity<StandardResponse> response = restTemplate.postForEntity(
                     appConfig.getMasterAddress() + "/master/heartbeat",
@@ -264,33 +865,60 @@ public class WorkerService implements IWorkerService {
 
     /**
      * 注销 Worker<br >
-     * 应用程序销毁调用
+     * 应用程序销毁调用，注销全部已申领的 Worker ID
      */
     @Override
     public void unregister() {
         if (!registered) {
             log.error("Worker 未注册，无法注销");
         }
+        if (workerIds != null) {
+            unregisterStripes(workerIds.length);
+        }
+        registered = false;
+        if (stripeGenerators != null) {
+            for (IIdGenerator stripeGenerator : stripeGenerators) {
+                stripeGenerator.close();
+            }
+        }
+        for (IIdGenerator stripeGenerator : namespaceStripeGenerators) {
+            stripeGenerator.close();
+        }
+        if (checkpointFuture != null) {
+            checkpointFuture.cancel(false);
+        }
+        if (checkpoint != null) {
+            checkpoint.close();
+        }
+        if (timeSource != null) {
+            timeSource.close();
+        }
+    }
 
-        try {
-            ResponseEntity<Boolean> response = restTemplate.postForEntity(
-                    appConfig.getMasterAddress() + "/master/unregister",
-                    workerId,
-                    Boolean.class
-            );
-            if (response.getStatusCode() == HttpStatus.OK) {
-                Assert.notNull(response.getBody(), "注销请求返回为空");
-                Boolean responseBody = response.getBody();
-                if (responseBody) {
-                    registered = false;
+    /**
+     * 注销前若干个条带
+     *
+     * @param count 条带数量
+     */
+    private void unregisterStripes(int count) {
+        for (int stripe = 0; stripe < count; stripe++) {
+            try {
+                ResponseEntity<Boolean> response = restTemplate.postForEntity(
+                        appConfig.getMasterAddress() + "/master/unregister",
+                        stripeBody(stripe),
+                        Boolean.class
+                );
+                if (response.getStatusCode() == HttpStatus.OK) {
+                    Assert.notNull(response.getBody(), "注销请求返回为空");
+                    if (!response.getBody()) {
+                        log.error("注销失败: 条带 {}", stripe);
+                    }
                 } else {
-                    log.error("注销失败");
+                    log.error("注销请求失败: HTTP {}", response.getStatusCode());
                 }
-            } else {
-                log.error("注销请求失败: HTTP {}", response.getStatusCode());
+            } catch (Exception e) {
+                log.error("注销发生错误: {}", e.getMessage());
             }
-        } catch (Exception e) {
-            log.error("注销发生错误: {}", e.getMessage());
         }
     }
 }
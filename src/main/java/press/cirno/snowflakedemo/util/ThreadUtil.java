@@ -0,0 +1,62 @@
+package press.cirno.snowflakedemo.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class ThreadUtil {
+    // Thread.ofVirtual()，JDK 21 以下为 null
+    private static final Method OF_VIRTUAL;
+    // Thread.Builder#name(String, long) / Thread.Builder#factory()
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            builderName = builder.getMethod("name", String.class, long.class);
+            builderFactory = builder.getMethod("factory");
+        } catch (ReflectiveOperationException ignored) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+    }
+
+    /**
+     * @return 当前 JDK 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建线程工厂<br >
+     * 启用虚拟线程且 JDK 支持时返回虚拟线程工厂，否则退回平台线程<br >
+     * 线程名为 前缀-序号
+     *
+     * @param prefix  线程名前缀
+     * @param virtual 是否使用虚拟线程
+     * @return 线程工厂
+     */
+    public static ThreadFactory factory(String prefix, boolean virtual) {
+        if (virtual && OF_VIRTUAL != null) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix + "-", 0L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                log.warn("创建虚拟线程工厂失败，使用平台线程: {}", e.getMessage());
+            }
+        }
+        AtomicInteger index = new AtomicInteger(0);
+        return runnable -> new Thread(runnable, prefix + "-" + index.getAndIncrement());
+    }
+}
@@ -0,0 +1,184 @@
+package press.cirno.snowflakedemo.worker;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.generator.IIdGenerator;
+import press.cirno.snowflakedemo.service.IWorkerService;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步模式的 ID 分发<br >
+ * 请求线程只做一次非阻塞生成，当前毫秒序列号耗尽时把请求挂起为 {@link DeferredResult} 立即返回；
+ * tick 线程在下一毫秒开始时按到达顺序批量完成挂起的请求，请求线程从不等待时钟<br >
+ * 已有挂起请求时新请求直接排队，避免新请求在新毫秒抢走序列号、挂起请求一直超时
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sf.worker.async.enabled", havingValue = "true")
+public class DeferredIdDispatcher {
+    // 生成失败（未注册、命名空间不可用、回拨超出容忍范围）的内部返回值，须与 UNAVAILABLE 区分：失败立即完成请求，不再排队重试
+    private static final long FAILED = Long.MIN_VALUE;
+
+    private final IWorkerService workerService;
+    private final AppConfig appConfig;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    // 上一 tick 未能完成的请求，仅 tick 线程访问，下一 tick 优先完成
+    private ArrayDeque<Pending> carry = new ArrayDeque<>();
+    // 挂起中的请求数，含已超时但尚未从队列移除的
+    private final AtomicInteger pending = new AtomicInteger(0);
+    private volatile boolean idle = false;
+    private volatile boolean running = true;
+    private final Thread ticker;
+
+    @Autowired
+    public DeferredIdDispatcher(IWorkerService workerService, AppConfig appConfig) {
+        this.workerService = workerService;
+        this.appConfig = appConfig;
+        this.ticker = new Thread(this::tick, "id-deferred-tick");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * 生成 ID，可用时结果立即就绪，否则挂起到下一毫秒
+     *
+     * @param namespace 命名空间 || null: 默认
+     * @return ID || -1: 未注册、时钟回拨、挂起数超限或超时
+     */
+    public DeferredResult<Long> nextId(String namespace) {
+        DeferredResult<Long> result = new DeferredResult<>(appConfig.getAsyncTimeout(), -1L);
+        if (pending.get() == 0) {
+            long id = tryNextId(namespace);
+            if (id != IIdGenerator.UNAVAILABLE) {
+                result.setResult(id == FAILED ? -1L : id);
+                return result;
+            }
+        }
+        if (pending.incrementAndGet() > appConfig.getAsyncMaxPending()) {
+            pending.decrementAndGet();
+            log.warn("挂起请求数超过上限 {}", appConfig.getAsyncMaxPending());
+            result.setResult(-1L);
+            return result;
+        }
+        queue.offer(new Pending(namespace, result));
+        if (idle) {
+            LockSupport.unpark(ticker);
+        }
+        return result;
+    }
+
+    /**
+     * tick 线程：有挂起请求时逐毫秒完成，全部完成后挂起等待唤醒
+     */
+    private void tick() {
+        while (running) {
+            if (carry.isEmpty() && queue.isEmpty()) {
+                // 先声明空闲再复查，入队方看到空闲才唤醒，不会漏掉唤醒
+                idle = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            try {
+                complete();
+            } catch (Exception e) {
+                log.error("完成挂起请求失败: {}", e.getMessage());
+            }
+            if (!carry.isEmpty()) {
+                // 仍有请求因序列号耗尽未完成，等到下一毫秒开始
+                LockSupport.parkNanos(this, 1_000_000L - Instant.now().getNano() % 1_000_000L);
+            }
+        }
+    }
+
+    /**
+     * 按到达顺序完成挂起请求，某命名空间序列号耗尽后本 tick 不再尝试该命名空间<br >
+     * 只处理进入本 tick 时已入队的请求，持续到达的请求不会让 tick 无法结束<br >
+     * 中途抛出异常时，已取出而未完成的请求仍留到下一 tick
+     */
+    private void complete() {
+        int budget = carry.size() + queue.size();
+        ArrayDeque<Pending> next = new ArrayDeque<>();
+        Set<String> exhausted = new HashSet<>();
+        Pending p;
+        try {
+            while (budget-- > 0 && ((p = carry.poll()) != null || (p = queue.poll()) != null)) {
+                if (p.result.isSetOrExpired()) {
+                    pending.decrementAndGet();
+                    continue;
+                }
+                if (exhausted.contains(p.namespace)) {
+                    next.add(p);
+                    continue;
+                }
+                long id = tryNextId(p.namespace);
+                if (id == IIdGenerator.UNAVAILABLE) {
+                    exhausted.add(p.namespace);
+                    next.add(p);
+                    continue;
+                }
+                // 先计数再完成：完成时回调抛出异常也不会多计一个挂起请求
+                pending.decrementAndGet();
+                p.result.setResult(id == FAILED ? -1L : id);
+            }
+        } finally {
+            // 未处理到的旧请求排在本 tick 留下的请求之前
+            next.addAll(carry);
+            carry = next;
+        }
+    }
+
+    /**
+     * @param namespace 命名空间 || null: 默认
+     * @return ID || {@link IIdGenerator#UNAVAILABLE} || {@link #FAILED}: 生成失败，含意外异常
+     */
+    private long tryNextId(String namespace) {
+        try {
+            return workerService.tryNextId(namespace);
+        } catch (WorkerManagementException | TimeAccuracyException e) {
+            return FAILED;
+        } catch (RuntimeException e) {
+            // 意外异常只让当前请求失败，不中断本 tick 的其余请求
+            log.error("生成 ID 发生错误: {}", e.toString());
+            return FAILED;
+        }
+    }
+
+    /**
+     * 停止 tick 线程，仍挂起的请求返回 -1
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending p;
+        while ((p = carry.poll()) != null || (p = queue.poll()) != null) {
+            p.result.setResult(-1L);
+        }
+    }
+
+    private record Pending(String namespace, DeferredResult<Long> result) {
+    }
+}
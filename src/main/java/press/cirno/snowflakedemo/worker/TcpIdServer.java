@@ -0,0 +1,351 @@
+package press.cirno.snowflakedemo.worker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.service.IWorkerService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Worker 二进制 TCP 端点<br >
+ * 协议：客户端发送 4 字节大端整数 N（1 ~ sf.worker.batch-max-count），服务端按请求顺序回写 N 个 8 字节大端 ID；
+ * 生成失败时其余位置回写 -1；N 不合法时关闭连接。同一连接可连续发送多个请求，无需等待响应<br >
+ * 一个接收线程 + 若干 I/O 线程，线程数与 Tomcat 无关；每个连接持有一对复用的直接缓冲区<br >
+ * I/O 线程只做非阻塞生成：当前毫秒序列号耗尽时暂停该连接、下一毫秒重试，不会因等待时钟拖住同一 Selector 上的其他连接
+ */
+@Slf4j
+@Component
+public class TcpIdServer {
+    // 单个请求头长度
+    private static final int HEADER = 4;
+
+    private final AppConfig appConfig;
+    private final IWorkerService workerService;
+
+    private volatile boolean running = false;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+    private IoLoop[] loops;
+    private int maxCount;
+    private int bufferSize;
+
+    @Autowired
+    public TcpIdServer(AppConfig appConfig, IWorkerService workerService) {
+        this.appConfig = appConfig;
+        this.workerService = workerService;
+    }
+
+    /**
+     * 启动监听，在 Worker 初始化后调用
+     *
+     * @throws IOException 端口绑定失败
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        maxCount = appConfig.getBatchMaxCount();
+        // 输出缓冲至少容纳一个最大请求的响应
+        bufferSize = Math.max(appConfig.getTcpBufferSize(), maxCount * Long.BYTES);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(appConfig.getTcpPort()), appConfig.getTcpBacklog());
+        int threads = Math.max(1, appConfig.getTcpIoThreads());
+        running = true;
+        loops = new IoLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new IoLoop(Selector.open());
+            Thread thread = new Thread(loops[i], "id-tcp-io-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        acceptor = new Thread(this::accept, "id-tcp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("TCP ID 端点已启动，端口 {}，I/O 线程 {}", appConfig.getTcpPort(), threads);
+    }
+
+    /**
+     * 停止监听并关闭全部连接
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            log.error("关闭 TCP 监听失败: {}", e.getMessage());
+        }
+        for (IoLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        log.info("TCP ID 端点已停止");
+    }
+
+    /**
+     * 接收线程：阻塞接收连接，轮转分配给 I/O 线程
+     */
+    private void accept() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[next++ % loops.length].register(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.error("接收 TCP 连接失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * I/O 线程：单个 Selector 上处理若干连接的读、生成与写
+     */
+    private class IoLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        // 因序列号耗尽暂停的连接，下一毫秒重试，仅本线程访问
+        private List<SelectionKey> deferred = new ArrayList<>();
+
+        IoLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel channel) {
+            pending.offer(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    if (deferred.isEmpty()) {
+                        selector.select();
+                    } else {
+                        selector.select(1L);
+                    }
+                    SocketChannel channel;
+                    while ((channel = pending.poll()) != null) {
+                        channel.register(selector, SelectionKey.OP_READ, new Connection());
+                    }
+                    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        SelectionKey key = iterator.next();
+                        iterator.remove();
+                        handle(key);
+                    }
+                    retryDeferred();
+                } catch (IOException e) {
+                    log.error("TCP I/O 线程错误: {}", e.getMessage());
+                }
+            }
+            closeAll();
+        }
+
+        private void handle(SelectionKey key) {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isValid() && key.isWritable() && !connection.flush(channel)) {
+                    return;
+                }
+                if (key.isValid() && key.isReadable() && channel.read(connection.in) < 0) {
+                    close(key);
+                    return;
+                }
+                process(key);
+            } catch (IOException | CancelledKeyException e) {
+                close(key);
+            }
+        }
+
+        /**
+         * 处理连接中已读入的请求并写出响应
+         *
+         * @param key 连接
+         * @throws IOException 写出失败
+         */
+        private void process(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+            do {
+                if (!connection.serve()) {
+                    log.warn("TCP 请求数量不合法，关闭连接: {}", channel.getRemoteAddress());
+                    close(key);
+                    return;
+                }
+                if (!connection.flush(channel)) {
+                    // 输出未写完时暂停读取，待可写后继续
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (connection.exhausted) {
+                    // 暂停读取，输入缓冲满后不会持续触发可读
+                    key.interestOps(0);
+                    if (!connection.deferred) {
+                        connection.deferred = true;
+                        deferred.add(key);
+                    }
+                    return;
+                }
+            } while (connection.hasPendingRequest());
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * 重试因序列号耗尽暂停的连接，仍耗尽的留待下一轮
+         */
+        private void retryDeferred() {
+            if (deferred.isEmpty()) {
+                return;
+            }
+            List<SelectionKey> keys = deferred;
+            deferred = new ArrayList<>();
+            for (SelectionKey key : keys) {
+                ((Connection) key.attachment()).deferred = false;
+                if (!key.isValid()) {
+                    continue;
+                }
+                try {
+                    process(key);
+                } catch (IOException | CancelledKeyException e) {
+                    close(key);
+                }
+            }
+        }
+
+        private void close(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void closeAll() {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 连接状态：输入缓冲保存未处理完的请求头，输出缓冲保存未写出的响应，均为写模式<br >
+     * 仅所属 I/O 线程访问
+     */
+    private class Connection {
+        private final ByteBuffer in = ByteBuffer.allocateDirect(HEADER * 256);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(bufferSize);
+        // 队首请求已写出的 ID 数，序列号耗尽时请求可能只写出一部分
+        private int served = 0;
+        // 上次处理因序列号耗尽而中止
+        private boolean exhausted = false;
+        // 已在所属 I/O 线程的重试列表中
+        private boolean deferred = false;
+
+        /**
+         * 处理输入中完整的请求，输出缓冲放不下或序列号耗尽时留待下次
+         *
+         * @return 是否合法 || false: 请求数量不合法
+         */
+        boolean serve() {
+            exhausted = false;
+            in.flip();
+            try {
+                while (in.remaining() >= HEADER) {
+                    int count = in.getInt(in.position());
+                    if (count < 1 || count > maxCount) {
+                        return false;
+                    }
+                    if (out.remaining() < (count - served) * Long.BYTES) {
+                        break;
+                    }
+                    if (!write(count)) {
+                        exhausted = true;
+                        break;
+                    }
+                    in.position(in.position() + HEADER);
+                }
+                return true;
+            } finally {
+                in.compact();
+            }
+        }
+
+        boolean hasPendingRequest() {
+            return in.position() >= HEADER;
+        }
+
+        /**
+         * 为队首请求非阻塞批量生成剩余的 ID，每次预留当前毫秒剩余的一段序列号，生成失败时其余位置写 -1
+         *
+         * @param count 请求数量
+         * @return 是否写完 || false: 当前毫秒序列号耗尽，已写出的数量记在 served 中
+         */
+        private boolean write(int count) {
+            try {
+                while (served < count) {
+                    // 一次取当前毫秒剩余的一段，耗尽时留到下一毫秒继续
+                    long[] ids = workerService.tryNextIds(null, count - served);
+                    if (ids.length == 0) {
+                        return false;
+                    }
+                    for (long id : ids) {
+                        out.putLong(id);
+                    }
+                    served += ids.length;
+                }
+            } catch (WorkerManagementException | TimeAccuracyException e) {
+                for (; served < count; served++) {
+                    out.putLong(-1L);
+                }
+            }
+            served = 0;
+            return true;
+        }
+
+        /**
+         * 尽量写出输出缓冲
+         *
+         * @return 是否已全部写出
+         */
+        boolean flush(SocketChannel channel) throws IOException {
+            out.flip();
+            try {
+                channel.write(out);
+                return !out.hasRemaining();
+            } finally {
+                out.compact();
+            }
+        }
+    }
+}
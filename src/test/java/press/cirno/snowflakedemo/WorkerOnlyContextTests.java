@@ -0,0 +1,39 @@
+package press.cirno.snowflakedemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import press.cirno.snowflakedemo.repositry.WorkerDAO;
+import press.cirno.snowflakedemo.service.IMasterService;
+import press.cirno.snowflakedemo.service.IWorkerService;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 纯 Worker 节点不加载持久层，数据源地址无效也能启动<br >
+ * Worker 注册依赖 Master，以桩代替
+ */
+@SpringBootTest(properties = {
+        "sf.master.enabled=false",
+        "sf.worker.enabled=true",
+        "spring.datasource.url=jdbc:postgresql://invalid.invalid:1/none"
+})
+class WorkerOnlyContextTests {
+
+    @MockitoBean
+    private IWorkerService workerService;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void workerContextLoadsWithoutDatabase() {
+        assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(WorkerDAO.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(IMasterService.class)).isEmpty();
+    }
+}
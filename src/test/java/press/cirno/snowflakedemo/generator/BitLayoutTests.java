@@ -0,0 +1,64 @@
+package press.cirno.snowflakedemo.generator;
+
+import org.junit.jupiter.api.Test;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 位布局校验与时间戳溢出：不合法的配置启动失败，时间戳超出位数后拒绝生成
+ */
+class BitLayoutTests {
+
+    @Test
+    void computesShiftsAndLimits() {
+        BitLayout layout = new BitLayout(39, 3, 9, 12);
+        assertThat(layout.getSequenceMask()).isEqualTo(4095L);
+        assertThat(layout.getWorkerShift()).isEqualTo(12);
+        assertThat(layout.getDatacenterShift()).isEqualTo(21);
+        assertThat(layout.getTimestampShift()).isEqualTo(24);
+        assertThat(layout.getMaxWorkerId()).isEqualTo(511L);
+        assertThat(layout.getMaxDatacenterId()).isEqualTo(7L);
+        assertThat(layout.getMaxTimestamp()).isEqualTo((1L << 39) - 1);
+    }
+
+    @Test
+    void rejectsInvalidLayout() {
+        assertThatThrownBy(() -> new BitLayout(41, 0, 10, 13)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BitLayout(0, 0, 51, 12)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BitLayout(41, -1, 11, 12)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void invalidConfigFailsInsteadOfFallingBack() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setTimestampBits(41);
+        appConfig.setDatacenterBits(2);
+        appConfig.setWorkerBits(10);
+        appConfig.setSequenceBits(12);
+        assertThatThrownBy(() -> BitLayout.of(appConfig)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void refusesTimestampBeyondLayout() {
+        // 8 位时间戳只能表示起始时间后 255 ms
+        BitLayout layout = new BitLayout(8, 0, 10, 45);
+        long startTime = System.currentTimeMillis() - 200L;
+        long[] now = {startTime + 255L};
+        GeneratorContext context = new GeneratorContext();
+        context.setWorkerId(1L);
+        context.setLayout(layout);
+        context.setStartTime(startTime);
+        context.setTimeSource(() -> now[0]);
+        LockIdGenerator generator = new LockIdGenerator(context);
+
+        long id = generator.nextId();
+        assertThat(id).isPositive();
+        assertThat(id >>> layout.getTimestampShift()).isEqualTo(255L);
+
+        now[0] = startTime + 256L;
+        assertThatThrownBy(generator::nextId).isInstanceOf(TimeAccuracyException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package press.cirno.snowflakedemo.generator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 预生成缓冲：按生成顺序发出，时钟回拨时清空缓冲，回拨前生成的 ID 不再发出
+ */
+class BufferedIdGeneratorTests {
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+    private final GeneratorStats stats = new GeneratorStats();
+    private BufferedIdGenerator generator;
+
+    private BufferedIdGenerator create() {
+        GeneratorContext context = new GeneratorContext();
+        context.setWorkerId(1L);
+        context.setStartTime(now.get() - TimeUnit.DAYS.toMillis(1));
+        context.setClockDriftStrategy("reject");
+        context.setStats(stats);
+        context.setTimeSource(now::get);
+        generator = new BufferedIdGenerator(context, new LockIdGenerator(context), 64, 50);
+        return generator;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    @Test
+    void drainsInIncreasingOrder() {
+        BufferedIdGenerator generator = create();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> stats.getIssued() >= 64);
+
+        long last = -1L;
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 0) {
+                now.incrementAndGet();
+            }
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+        long[] ids = generator.nextIds(100);
+        for (long id : ids) {
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+    }
+
+    @Test
+    void flushesOnClockRollback() {
+        BufferedIdGenerator generator = create();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> stats.getIssued() >= 64);
+        long beforeRollback = generator.nextId();
+
+        // 缓冲内的 ID 领先回拨后的时钟，不能发出；底层生成器按 reject 策略拒绝
+        now.addAndGet(-5L);
+        assertThatThrownBy(generator::nextId).isInstanceOf(TimeAccuracyException.class);
+
+        // 时钟追上后重新填充，发出的 ID 晚于回拨前的 ID
+        now.addAndGet(6L);
+        long afterRecovery = generator.nextId();
+        assertThat(afterRecovery).isGreaterThan(beforeRollback);
+        assertThat(generator.timestampOf(afterRecovery)).isEqualTo(now.get());
+    }
+}
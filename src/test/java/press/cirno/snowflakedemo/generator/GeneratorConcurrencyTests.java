@@ -0,0 +1,155 @@
+package press.cirno.snowflakedemo.generator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 各生成器并发生成：全局唯一，单个线程取得的 ID 严格递增
+ */
+class GeneratorConcurrencyTests {
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 20000;
+
+    private IIdGenerator generator;
+
+    private static IIdGenerator create(String mode) {
+        GeneratorContext context = new GeneratorContext();
+        context.setWorkerId(1L);
+        context.setStartTime(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        // 借用期间逻辑时间戳领先时钟，也须保持递增
+        context.setBorrowLimit(2L);
+        return switch (mode) {
+            case "lock" -> new LockIdGenerator(context);
+            case "cas" -> new CasIdGenerator(context);
+            case "combining" -> new CombiningIdGenerator(context);
+            case "buffered-lock" -> new BufferedIdGenerator(context, new LockIdGenerator(context), 1024, 50);
+            case "buffered-cas" -> new BufferedIdGenerator(context, new CasIdGenerator(context), 1024, 50);
+            default -> throw new IllegalArgumentException(mode);
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"lock", "cas", "combining", "buffered-lock", "buffered-cas"})
+    void uniqueAndIncreasingPerThread(String mode) throws Exception {
+        generator = create(mode);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            long[][] issued = new long[THREADS][];
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    issued[thread] = generate();
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            long[] all = new long[THREADS * PER_THREAD];
+            for (int t = 0; t < THREADS; t++) {
+                long[] ids = issued[t];
+                for (int i = 1; i < ids.length; i++) {
+                    assertThat(ids[i]).as("%s 线程 %d 第 %d 个 ID", mode, t, i).isGreaterThan(ids[i - 1]);
+                }
+                System.arraycopy(ids, 0, all, t * PER_THREAD, PER_THREAD);
+            }
+            Arrays.sort(all);
+            assertThat(all[0]).isPositive();
+            for (int i = 1; i < all.length; i++) {
+                assertThat(all[i]).as("%s 重复 ID", mode).isNotEqualTo(all[i - 1]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"lock", "cas", "combining"})
+    void tryNextIdsStopsAtMillisecondBoundary(String mode) {
+        long[] now = {System.currentTimeMillis()};
+        GeneratorContext context = new GeneratorContext();
+        context.setWorkerId(1L);
+        // 每毫秒 8 个序列号
+        context.setLayout(new BitLayout(41, 0, 19, 3));
+        context.setStartTime(now[0] - TimeUnit.DAYS.toMillis(1));
+        context.setTimeSource(() -> now[0]);
+        generator = switch (mode) {
+            case "lock" -> new LockIdGenerator(context);
+            case "cas" -> new CasIdGenerator(context);
+            default -> new CombiningIdGenerator(context);
+        };
+        now[0]++;
+
+        long[] first = generator.tryNextIds(5);
+        assertThat(first).hasSize(5);
+        // 只返回当前毫秒剩余的部分，不等待时钟
+        long[] rest = generator.tryNextIds(20);
+        assertThat(rest).hasSize(3);
+        assertThat(rest[0]).isGreaterThan(first[4]);
+        assertThat(generator.tryNextIds(20)).isEmpty();
+        assertThat(context.getStats().getExhaustionWaits()).isEqualTo(1L);
+
+        now[0]++;
+        long[] next = generator.tryNextIds(20);
+        assertThat(next).hasSize(8);
+        assertThat(next[0]).isGreaterThan(rest[2]);
+    }
+
+    /**
+     * 交替使用阻塞、非阻塞、批量与非阻塞批量生成
+     *
+     * @return 按取得顺序排列的 ID
+     */
+    private long[] generate() {
+        long[] ids = new long[PER_THREAD];
+        int filled = 0;
+        while (filled < PER_THREAD) {
+            switch (filled % 4) {
+                case 0 -> ids[filled++] = generator.nextId();
+                case 1 -> {
+                    long id;
+                    while ((id = generator.tryNextId()) == IIdGenerator.UNAVAILABLE) {
+                        Thread.onSpinWait();
+                    }
+                    ids[filled++] = id;
+                }
+                case 2 -> {
+                    long[] batch;
+                    while ((batch = generator.tryNextIds(Math.min(5, PER_THREAD - filled))).length == 0) {
+                        Thread.onSpinWait();
+                    }
+                    System.arraycopy(batch, 0, ids, filled, batch.length);
+                    filled += batch.length;
+                }
+                default -> {
+                    int count = Math.min(7, PER_THREAD - filled);
+                    System.arraycopy(generator.nextIds(count), 0, ids, filled, count);
+                    filled += count;
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,104 @@
+package press.cirno.snowflakedemo.generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import press.cirno.snowflakedemo.exception.TimeAccuracyException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 时间戳检查点：重启后恢复保存值作为下限，同一文件只能被一方打开
+ */
+class TimestampCheckpointTests {
+    @TempDir
+    Path dir;
+
+    @Test
+    void restartRecoversFloor() throws IOException {
+        Path path = dir.resolve("worker-0-1.ckpt");
+        long issued = System.currentTimeMillis() + 5000L;
+        try (TimestampCheckpoint checkpoint = new TimestampCheckpoint(path, () -> issued)) {
+            assertThat(checkpoint.load()).isZero();
+            checkpoint.save();
+        }
+
+        long floor;
+        try (TimestampCheckpoint checkpoint = new TimestampCheckpoint(path, () -> 0L)) {
+            assertThat(checkpoint.load()).isEqualTo(issued);
+            floor = checkpoint.load() + 2 * 200L;
+        }
+
+        // 时钟在重启期间回拨超出容忍范围：时钟追上下限之前拒绝生成，之后只发出时间戳大于下限的 ID
+        long now = issued - 3000L;
+        GeneratorContext context = new GeneratorContext();
+        context.setWorkerId(1L);
+        context.setStartTime(now - TimeUnit.DAYS.toMillis(1));
+        context.setTimestampFloor(floor);
+        context.setTimeSource(() -> now);
+        LockIdGenerator generator = new LockIdGenerator(context);
+        assertThatThrownBy(generator::nextId).isInstanceOf(TimeAccuracyException.class);
+        context.setTimeSource(() -> floor + 1L);
+        LockIdGenerator later = new LockIdGenerator(context);
+        assertThat(later.timestampOf(later.nextId())).isGreaterThan(floor);
+    }
+
+    @Test
+    void saveNeverMovesBackwards() throws IOException {
+        Path path = dir.resolve("worker-0-2.ckpt");
+        long[] highest = {2000L};
+        try (TimestampCheckpoint checkpoint = new TimestampCheckpoint(path, () -> highest[0])) {
+            checkpoint.save();
+            highest[0] = 1000L;
+            checkpoint.save();
+            assertThat(checkpoint.load()).isEqualTo(2000L);
+        }
+    }
+
+    @Test
+    void ignoresCorruptedSlot() throws IOException {
+        Path path = dir.resolve("worker-0-3.ckpt");
+        long[] highest = {3000L};
+        try (TimestampCheckpoint checkpoint = new TimestampCheckpoint(path, () -> highest[0])) {
+            checkpoint.save();
+            highest[0] = 4000L;
+        }
+        // 两次保存分别写入两个槽位，模拟写入第二个槽位时崩溃
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, 9999L), 16);
+        }
+        long[] reopened = {0L};
+        try (TimestampCheckpoint checkpoint = new TimestampCheckpoint(path, () -> reopened[0])) {
+            assertThat(checkpoint.load()).isEqualTo(3000L);
+            // 下次写入覆盖损坏的槽位，保留有效的槽位
+            reopened[0] = 5000L;
+            checkpoint.save();
+        }
+        try (TimestampCheckpoint checkpoint = new TimestampCheckpoint(path, () -> 0L)) {
+            assertThat(checkpoint.load()).isEqualTo(5000L);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer slot = ByteBuffer.allocate(8);
+            channel.read(slot, 0);
+            assertThat(slot.getLong(0)).isEqualTo(3000L);
+        }
+    }
+
+    @Test
+    void secondOpenFailsFast() throws IOException {
+        Path path = dir.resolve("worker-0-4.ckpt");
+        try (TimestampCheckpoint ignored = new TimestampCheckpoint(path, () -> 0L)) {
+            assertThatThrownBy(() -> new TimestampCheckpoint(path, () -> 0L))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+        // 关闭后释放文件锁，可再次打开
+        new TimestampCheckpoint(path, () -> 0L).close();
+    }
+}
@@ -0,0 +1,79 @@
+package press.cirno.snowflakedemo.master;
+
+import org.junit.jupiter.api.Test;
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 心跳时间轮：截止时间后一个刻度内返回，心跳续期的 Worker 按新的截止时间重新登记
+ */
+class HeartbeatWheelTests {
+    private static final long TICK = 100L;
+    private static final long TIMEOUT = 10000L;
+    private static final long START = 1_000_000L;
+
+    private static WorkerPO worker(int id, long lastHeartbeat) {
+        WorkerPO workerPO = new WorkerPO("127.0.0.1", "00-00-00-00-00-00", id, lastHeartbeat, "http://127.0.0.1/");
+        workerPO.setId(id);
+        return workerPO;
+    }
+
+    @Test
+    void expiresWithinOneTickAfterDeadline() {
+        HeartbeatWheel wheel = new HeartbeatWheel(TICK, 512, TIMEOUT, START);
+        WorkerPO workerPO = worker(1, START);
+        wheel.schedule(workerPO);
+
+        // 截止时间之前逐刻度推进，不返回
+        for (long now = START + TICK; now <= START + TIMEOUT; now += TICK) {
+            assertThat(wheel.advance(now)).isEmpty();
+        }
+        assertThat(wheel.advance(START + TIMEOUT + TICK)).containsExactly(workerPO);
+        // 返回后不再登记
+        assertThat(wheel.advance(START + 3 * TIMEOUT)).isEmpty();
+    }
+
+    @Test
+    void heartbeatPostponesExpiry() {
+        HeartbeatWheel wheel = new HeartbeatWheel(TICK, 512, TIMEOUT, START);
+        WorkerPO alive = worker(1, START);
+        WorkerPO dead = worker(2, START);
+        wheel.schedule(alive);
+        wheel.schedule(dead);
+
+        // 心跳只更新时间，不移动登记
+        alive.setLastHeartbeat(START + 3000L);
+        assertThat(wheel.advance(START + TIMEOUT + TICK)).containsExactly(dead);
+        assertThat(wheel.advance(START + 3000L + TIMEOUT)).isEmpty();
+        assertThat(wheel.advance(START + 3000L + TIMEOUT + TICK)).containsExactly(alive);
+    }
+
+    @Test
+    void deadlineBeyondOneRevolution() {
+        // 16 个刻度一圈为 1.6 秒，远短于超时
+        HeartbeatWheel wheel = new HeartbeatWheel(TICK, 16, TIMEOUT, START);
+        WorkerPO workerPO = worker(1, START);
+        wheel.schedule(workerPO);
+
+        for (long now = START + TICK; now <= START + TIMEOUT; now += TICK) {
+            assertThat(wheel.advance(now)).isEmpty();
+        }
+        List<WorkerPO> due = wheel.advance(START + TIMEOUT + TICK);
+        assertThat(due).containsExactly(workerPO);
+    }
+
+    @Test
+    void skippedTicksAreCaughtUp() {
+        HeartbeatWheel wheel = new HeartbeatWheel(TICK, 512, TIMEOUT, START);
+        WorkerPO first = worker(1, START);
+        WorkerPO second = worker(2, START + 2000L);
+        wheel.schedule(first);
+        wheel.schedule(second);
+
+        // 巡检线程停顿多个刻度后一次推进，经过的槽位全部复查
+        assertThat(wheel.advance(START + 2000L + TIMEOUT + TICK)).containsExactlyInAnyOrder(first, second);
+    }
+}
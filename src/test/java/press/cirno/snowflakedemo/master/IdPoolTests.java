@@ -0,0 +1,89 @@
+package press.cirno.snowflakedemo.master;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 代理模式 ID 池：按批取出，作废后不再取出，拉取期间被作废的批次不会放入
+ */
+class IdPoolTests {
+
+    @Test
+    void pollsInOfferOrder() {
+        IdPool pool = new IdPool();
+        assertThat(pool.offer(1, pool.epoch(1), new long[]{10L, 11L})).isTrue();
+        assertThat(pool.offer(2, pool.epoch(2), new long[]{20L})).isTrue();
+        assertThat(pool.available()).isEqualTo(3L);
+
+        assertThat(pool.poll()).isEqualTo(10L);
+        assertThat(pool.poll()).isEqualTo(11L);
+        assertThat(pool.poll()).isEqualTo(20L);
+        assertThat(pool.poll()).isEqualTo(-1L);
+        assertThat(pool.available()).isZero();
+    }
+
+    @Test
+    void revokeDropsRemainingIds() {
+        IdPool pool = new IdPool();
+        pool.offer(1, pool.epoch(1), new long[]{10L, 11L, 12L});
+        pool.offer(2, pool.epoch(2), new long[]{20L});
+        assertThat(pool.poll()).isEqualTo(10L);
+
+        assertThat(pool.revoke(1)).isEqualTo(2L);
+        assertThat(pool.available()).isEqualTo(1L);
+        assertThat(pool.poll()).isEqualTo(20L);
+        assertThat(pool.poll()).isEqualTo(-1L);
+    }
+
+    @Test
+    void offerAfterRevokeIsRejected() {
+        IdPool pool = new IdPool();
+        long epoch = pool.epoch(1);
+        // 拉取期间 Worker 被作废
+        pool.revoke(1);
+        assertThat(pool.offer(1, epoch, new long[]{10L})).isFalse();
+        assertThat(pool.available()).isZero();
+        assertThat(pool.poll()).isEqualTo(-1L);
+
+        // 重新读取轮次后（如 Worker ID 重新分配）可再放入
+        assertThat(pool.offer(1, pool.epoch(1), new long[]{11L})).isTrue();
+        assertThat(pool.poll()).isEqualTo(11L);
+    }
+
+    @Test
+    void concurrentOfferAndRevokeNeverLeavesRevokedIds() throws InterruptedException {
+        for (int round = 0; round < 2000; round++) {
+            IdPool pool = new IdPool();
+            long epoch = pool.epoch(1);
+            CountDownLatch start = new CountDownLatch(1);
+            Thread offerer = new Thread(() -> {
+                await(start);
+                pool.offer(1, epoch, new long[]{1L, 2L, 3L});
+            });
+            Thread revoker = new Thread(() -> {
+                await(start);
+                pool.revoke(1);
+            });
+            offerer.start();
+            revoker.start();
+            start.countDown();
+            offerer.join();
+            revoker.join();
+
+            // 作废发生在读取轮次之后，无论与放入如何交错，池内都不应留下该 Worker 的 ID
+            assertThat(pool.poll()).isEqualTo(-1L);
+            assertThat(pool.available()).isZero();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package press.cirno.snowflakedemo.master;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Worker ID 分配器：分配最小空闲 ID，释放的 ID 隔离期满前不会再次分配
+ */
+class WorkerIdAllocatorTests {
+    private static final long QUARANTINE = 11001L;
+
+    @Test
+    void allocatesSmallestFreeIdAndSkipsZero() {
+        WorkerIdAllocator allocator = new WorkerIdAllocator(1023, QUARANTINE);
+        assertThat(allocator.available()).isEqualTo(1023);
+        assertThat(allocator.allocate(0L)).isEqualTo(1);
+        assertThat(allocator.allocate(0L)).isEqualTo(2);
+        assertThat(allocator.reserve(3)).isTrue();
+        assertThat(allocator.reserve(3)).isFalse();
+        assertThat(allocator.reserve(0)).isFalse();
+        assertThat(allocator.reserve(1024)).isFalse();
+        assertThat(allocator.allocate(0L)).isEqualTo(4);
+
+        allocator.releaseNow(2);
+        assertThat(allocator.allocate(0L)).isEqualTo(2);
+    }
+
+    @Test
+    void releasedIdIsQuarantined() {
+        WorkerIdAllocator allocator = new WorkerIdAllocator(3, QUARANTINE);
+        assertThat(allocator.allocate(0L)).isEqualTo(1);
+        assertThat(allocator.allocate(0L)).isEqualTo(2);
+        assertThat(allocator.allocate(0L)).isEqualTo(3);
+
+        long releasedAt = 1000L;
+        allocator.release(2, releasedAt);
+        // 隔离期内即使已无空闲 ID 也不复用
+        assertThat(allocator.allocate(releasedAt + QUARANTINE - 1)).isEqualTo(-1);
+        assertThat(allocator.available()).isZero();
+        assertThat(allocator.allocate(releasedAt + QUARANTINE)).isEqualTo(2);
+    }
+
+    @Test
+    void quarantineExpiresInReleaseOrder() {
+        WorkerIdAllocator allocator = new WorkerIdAllocator(2, QUARANTINE);
+        allocator.allocate(0L);
+        allocator.allocate(0L);
+        allocator.release(2, 1000L);
+        allocator.release(1, 2000L);
+
+        assertThat(allocator.allocate(1000L + QUARANTINE)).isEqualTo(2);
+        assertThat(allocator.allocate(1000L + QUARANTINE)).isEqualTo(-1);
+        assertThat(allocator.allocate(2000L + QUARANTINE)).isEqualTo(1);
+    }
+
+    @Test
+    void unreservedIdsAreQuarantinedAfterStartup() {
+        WorkerIdAllocator allocator = new WorkerIdAllocator(3, QUARANTINE);
+        assertThat(allocator.reserve(1)).isTrue();
+        long startedAt = 5000L;
+        allocator.quarantineUnreserved(startedAt);
+
+        // 重启前释放的 ID 可能仍在使用，启动隔离期内一概不分配
+        assertThat(allocator.warming(startedAt + QUARANTINE - 1)).isTrue();
+        assertThat(allocator.allocate(startedAt + QUARANTINE - 1)).isEqualTo(-1);
+        assertThat(allocator.warming(startedAt + QUARANTINE)).isFalse();
+        assertThat(allocator.allocate(startedAt + QUARANTINE)).isEqualTo(2);
+    }
+
+    @Test
+    void multiLevelBitmapCoversWholeRange() {
+        // 2^18 - 1 个 ID，三层位图
+        int maxId = (1 << 18) - 1;
+        WorkerIdAllocator allocator = new WorkerIdAllocator(maxId, QUARANTINE);
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < maxId; i++) {
+            int id = allocator.allocate(0L);
+            assertThat(id).isEqualTo(i + 1);
+            ids.add(id);
+        }
+        assertThat(ids).hasSize(maxId);
+        assertThat(allocator.allocate(0L)).isEqualTo(-1);
+
+        allocator.releaseNow(70000);
+        assertThat(allocator.allocate(0L)).isEqualTo(70000);
+    }
+}
@@ -0,0 +1,87 @@
+package press.cirno.snowflakedemo.master;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+import press.cirno.snowflakedemo.repositry.WorkerDAO;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 内存注册表：同一识别的注册互斥，注册前只删除与新记录冲突的待删除记录
+ */
+class WorkerRegistryTests {
+    private WorkerDAO workerDAO;
+    private WorkerRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        workerDAO = mock(WorkerDAO.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        registry = new WorkerRegistry(workerDAO, transactionTemplate);
+    }
+
+    private static WorkerPO worker(int id, String mac) {
+        WorkerPO workerPO = new WorkerPO("127.0.0.1", mac, 0, 0L, "http://127.0.0.1/");
+        workerPO.setId(id);
+        return workerPO;
+    }
+
+    @Test
+    void registrationIsExclusivePerIdentity() {
+        assertThat(registry.beginRegistration("127.0.0.1", "a", 0)).isTrue();
+        // 并发的重复注册在查重之前即被拒绝
+        assertThat(registry.beginRegistration("127.0.0.1", "a", 0)).isFalse();
+        assertThat(registry.beginRegistration("127.0.0.1", "a", 1)).isTrue();
+
+        registry.add(worker(1, "a"));
+        registry.endRegistration("127.0.0.1", "a", 0);
+        assertThat(registry.beginRegistration("127.0.0.1", "a", 0)).isFalse();
+
+        registry.remove(registry.findById(1));
+        assertThat(registry.beginRegistration("127.0.0.1", "a", 0)).isTrue();
+    }
+
+    @Test
+    void flushConflictingDeletesOnlyConflicts() {
+        registry.add(worker(1, "a"));
+        registry.add(worker(2, "b"));
+        registry.add(worker(3, "c"));
+        registry.remove(registry.findById(1));
+        registry.remove(registry.findById(2));
+        registry.remove(registry.findById(3));
+
+        // 新记录与 1 同识别、与 2 同 ID
+        registry.flushConflicting(worker(2, "a"));
+        verify(workerDAO).deleteAllByIdInBatch(eq(Set.of(1, 2)));
+
+        registry.flush();
+        verify(workerDAO).deleteAllByIdInBatch(eq(Set.of(3)));
+        verifyNoMoreInteractions(workerDAO);
+    }
+
+    @Test
+    void failedConflictDeleteIsRetriedOnFlush() {
+        registry.add(worker(1, "a"));
+        registry.remove(registry.findById(1));
+        doThrow(new IllegalStateException("db down")).doNothing().when(workerDAO).deleteAllByIdInBatch(any());
+
+        // 删除失败时注册失败，待删除记录保留到下次写回
+        assertThatThrownBy(() -> registry.flushConflicting(worker(2, "a"))).isInstanceOf(IllegalStateException.class);
+        registry.flush();
+        verify(workerDAO, times(2)).deleteAllByIdInBatch(eq(Set.of(1)));
+    }
+}
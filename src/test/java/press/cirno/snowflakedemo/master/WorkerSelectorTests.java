@@ -0,0 +1,44 @@
+package press.cirno.snowflakedemo.master;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import press.cirno.snowflakedemo.pojo.WorkerPO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Worker 选择策略：快照中仅剩一个存活 Worker 时也总能选中，全部过期时返回 null
+ */
+class WorkerSelectorTests {
+    private static final long DEADLINE = 1000L;
+
+    private static List<WorkerPO> snapshot(int size, int alive) {
+        List<WorkerPO> snapshot = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            WorkerPO workerPO = new WorkerPO("127.0.0.1", "mac", i, i == alive ? DEADLINE : DEADLINE - 1, "http://w" + i + "/");
+            workerPO.setId(i + 1);
+            snapshot.add(workerPO);
+        }
+        return snapshot;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"random", "weighted", "p2c", "least-loaded"})
+    void findsTheOnlyAliveWorker(String strategy) {
+        IWorkerSelector selector = IWorkerSelector.of(strategy);
+        List<WorkerPO> snapshot = snapshot(64, 37);
+        // 随机探测大概率全部落在过期 Worker 上，须靠线性扫描兜底
+        for (int round = 0; round < 1000; round++) {
+            assertThat(selector.select(snapshot, DEADLINE)).isSameAs(snapshot.get(37));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"random", "weighted", "p2c", "least-loaded"})
+    void returnsNullWhenAllExpired(String strategy) {
+        assertThat(IWorkerSelector.of(strategy).select(snapshot(8, -1), DEADLINE)).isNull();
+    }
+}
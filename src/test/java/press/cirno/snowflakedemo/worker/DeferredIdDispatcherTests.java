@@ -0,0 +1,120 @@
+package press.cirno.snowflakedemo.worker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.generator.IIdGenerator;
+import press.cirno.snowflakedemo.service.IWorkerService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 异步分发：序列号耗尽时挂起到下一毫秒完成，生成失败立即完成，不占用挂起名额
+ */
+class DeferredIdDispatcherTests {
+    private IWorkerService workerService;
+    private DeferredIdDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        workerService = mock(IWorkerService.class);
+        AppConfig appConfig = new AppConfig();
+        appConfig.setAsyncTimeout(5000L);
+        appConfig.setAsyncMaxPending(4);
+        dispatcher = new DeferredIdDispatcher(workerService, appConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void exhaustedRequestsCompleteOnLaterTick() {
+        AtomicLong next = new AtomicLong(100L);
+        // 前 3 次耗尽，之后可用
+        when(workerService.tryNextId(null)).thenReturn(IIdGenerator.UNAVAILABLE, IIdGenerator.UNAVAILABLE,
+                IIdGenerator.UNAVAILABLE).thenAnswer(invocation -> next.getAndIncrement());
+
+        DeferredResult<Long> first = dispatcher.nextId(null);
+        DeferredResult<Long> second = dispatcher.nextId(null);
+
+        await().atMost(1, TimeUnit.SECONDS).until(() -> first.hasResult() && second.hasResult());
+        assertThat((Long) first.getResult()).isEqualTo(100L);
+        assertThat((Long) second.getResult()).isEqualTo(101L);
+    }
+
+    @Test
+    void failureCompletesImmediatelyWithoutQueueing() {
+        when(workerService.tryNextId(eq("bad"))).thenThrow(new WorkerManagementException("命名空间不合法: bad"));
+        when(workerService.tryNextId(null)).thenReturn(7L);
+
+        DeferredResult<Long> failed = dispatcher.nextId("bad");
+        assertThat(failed.hasResult()).isTrue();
+        assertThat((Long) failed.getResult()).isEqualTo(-1L);
+
+        // 失败请求未计入挂起数，后续请求仍走快速路径
+        DeferredResult<Long> ok = dispatcher.nextId(null);
+        assertThat(ok.hasResult()).isTrue();
+        assertThat((Long) ok.getResult()).isEqualTo(7L);
+    }
+
+    @Test
+    void failureWhileQueuedCompletesOnNextTick() {
+        // 默认命名空间耗尽使请求排队，排队期间的失败请求在下一 tick 完成而不是等到超时
+        when(workerService.tryNextId(null)).thenReturn(IIdGenerator.UNAVAILABLE)
+                .thenAnswer(invocation -> IIdGenerator.UNAVAILABLE);
+        when(workerService.tryNextId(eq("bad"))).thenThrow(new WorkerManagementException("未声明的命名空间: bad"));
+
+        DeferredResult<Long> parked = dispatcher.nextId(null);
+        DeferredResult<Long> failed = dispatcher.nextId("bad");
+
+        await().atMost(200, TimeUnit.MILLISECONDS).until(failed::hasResult);
+        assertThat((Long) failed.getResult()).isEqualTo(-1L);
+        assertThat(parked.hasResult()).isFalse();
+        verify(workerService, atLeastOnce()).tryNextId(any());
+    }
+
+    @Test
+    void unexpectedExceptionFailsOnlyThatRequest() {
+        AtomicLong next = new AtomicLong(100L);
+        when(workerService.tryNextId(null)).thenReturn(IIdGenerator.UNAVAILABLE, IIdGenerator.UNAVAILABLE)
+                .thenAnswer(invocation -> next.getAndIncrement());
+        when(workerService.tryNextId(eq("boom"))).thenThrow(new IllegalStateException("boom"));
+
+        DeferredResult<Long> before = dispatcher.nextId(null);
+        DeferredResult<Long> boom = dispatcher.nextId("boom");
+        DeferredResult<Long> after = dispatcher.nextId(null);
+
+        await().atMost(1, TimeUnit.SECONDS).until(() -> before.hasResult() && boom.hasResult() && after.hasResult());
+        assertThat((Long) before.getResult()).isEqualTo(100L);
+        assertThat((Long) boom.getResult()).isEqualTo(-1L);
+        assertThat((Long) after.getResult()).isEqualTo(101L);
+
+        // 挂起数已归零，新请求走快速路径
+        DeferredResult<Long> fast = dispatcher.nextId(null);
+        assertThat(fast.hasResult()).isTrue();
+        assertThat((Long) fast.getResult()).isEqualTo(102L);
+    }
+
+    @Test
+    void rejectsBeyondMaxPending() {
+        when(workerService.tryNextId(null)).thenReturn(IIdGenerator.UNAVAILABLE);
+        for (int i = 0; i < 4; i++) {
+            assertThat(dispatcher.nextId(null).hasResult()).isFalse();
+        }
+        DeferredResult<Long> rejected = dispatcher.nextId(null);
+        assertThat(rejected.hasResult()).isTrue();
+        assertThat((Long) rejected.getResult()).isEqualTo(-1L);
+    }
+}
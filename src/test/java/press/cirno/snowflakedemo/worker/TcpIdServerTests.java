@@ -0,0 +1,104 @@
+package press.cirno.snowflakedemo.worker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import press.cirno.snowflakedemo.config.AppConfig;
+import press.cirno.snowflakedemo.exception.WorkerManagementException;
+import press.cirno.snowflakedemo.service.IWorkerService;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * TCP 端点：I/O 线程只做非阻塞生成，序列号耗尽的请求在之后继续写完，响应顺序不变
+ */
+class TcpIdServerTests {
+    private IWorkerService workerService;
+    private TcpIdServer server;
+    private int port;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        workerService = mock(IWorkerService.class);
+        AppConfig appConfig = new AppConfig();
+        appConfig.setTcpPort(port);
+        appConfig.setTcpIoThreads(1);
+        appConfig.setBatchMaxCount(64);
+        server = new TcpIdServer(appConfig, workerService);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void resumesExhaustedRequestsInOrder() throws IOException {
+        AtomicLong next = new AtomicLong(0L);
+        AtomicInteger calls = new AtomicInteger(0);
+        // 每毫秒至多 5 个 ID，取完一段后的下一次调用为耗尽
+        when(workerService.tryNextIds(isNull(), anyInt())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() % 2 == 0) {
+                return new long[0];
+            }
+            long[] ids = new long[Math.min(5, invocation.<Integer>getArgument(1))];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = next.getAndIncrement();
+            }
+            return ids;
+        });
+
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(5000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            // 流水线发送多个请求
+            out.writeInt(1);
+            out.writeInt(17);
+            out.writeInt(3);
+            out.flush();
+            for (long expected = 0; expected < 21; expected++) {
+                assertThat(in.readLong()).isEqualTo(expected);
+            }
+        }
+        verify(workerService, never()).nextId();
+        verify(workerService, never()).nextIds(anyInt());
+        verify(workerService, never()).tryNextId(any());
+    }
+
+    @Test
+    void failureFillsRemainingWithMinusOne() throws IOException {
+        AtomicInteger calls = new AtomicInteger(0);
+        when(workerService.tryNextIds(isNull(), anyInt())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new WorkerManagementException("Worker 未注册");
+            }
+            return new long[]{1L, 2L};
+        });
+
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(5000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeInt(4);
+            out.flush();
+            assertThat(in.readLong()).isEqualTo(1L);
+            assertThat(in.readLong()).isEqualTo(2L);
+            assertThat(in.readLong()).isEqualTo(-1L);
+            assertThat(in.readLong()).isEqualTo(-1L);
+        }
+    }
+}